@@ -0,0 +1,100 @@
+package com.lessvoid.indexgl;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks. By default the registry build is measured once and all other benchmarks are run with 1, 2, 4
+ * and all available threads followed by a table showing how the throughput scales. The gc profiler reports the
+ * allocation rate. Other JMH options (f.i. "-i 10") are applied to all runs. When benchmarks are selected
+ * explicitly (f.i. "TypeaheadBenchmark -t 8") the arguments are simply passed to JMH.
+ *
+ * @author void
+ */
+public class Benchmarks {
+  private static final String BUILD = "RegistryBuildBenchmark";
+  private static final String THROUGHPUT = "TypeaheadBenchmark|GLInfoBenchmark|JsonBenchmark";
+
+  public static void main(final String[] args) throws Exception {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    if (!commandLine.getIncludes().isEmpty()) {
+      new Runner(commandLine).run();
+      return;
+    }
+
+    new Runner(options(commandLine, BUILD, 1)).run();
+
+    TreeSet<Integer> threads = new TreeSet<Integer>();
+    threads.add(1);
+    threads.add(2);
+    threads.add(4);
+    threads.add(Runtime.getRuntime().availableProcessors());
+
+    Map<String, Map<Integer, RunResult>> scaling = new LinkedHashMap<String, Map<Integer, RunResult>>();
+    for (int count : threads) {
+      Collection<RunResult> results = new Runner(options(commandLine, THROUGHPUT, count)).run();
+      for (RunResult result : results) {
+        String label = label(result);
+        if (!scaling.containsKey(label)) {
+          scaling.put(label, new LinkedHashMap<Integer, RunResult>());
+        }
+        scaling.get(label).put(count, result);
+      }
+    }
+    printScaling(threads, scaling);
+  }
+
+  private static Options options(final CommandLineOptions commandLine, final String include, final int threads) {
+    return new OptionsBuilder()
+        .parent(commandLine)
+        .include(include)
+        .threads(threads)
+        .addProfiler(GCProfiler.class)
+        .build();
+  }
+
+  private static String label(final RunResult result) {
+    String benchmark = result.getParams().getBenchmark();
+    // class and method name only
+    int method = benchmark.lastIndexOf('.');
+    StringBuilder label = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', method - 1) + 1));
+    for (String key : result.getParams().getParamsKeys()) {
+      label.append(" ").append(key).append("=").append(result.getParams().getParam(key));
+    }
+    return label.toString();
+  }
+
+  private static void printScaling(final TreeSet<Integer> threads, final Map<String, Map<Integer, RunResult>> scaling) {
+    System.out.println();
+    System.out.println("Throughput scaling (ops/ms, speedup against 1 thread)");
+    StringBuilder header = new StringBuilder(String.format("%-55s", "Benchmark"));
+    for (int count : threads) {
+      header.append(String.format("%22s", count + " threads"));
+    }
+    System.out.println(header);
+    for (Map.Entry<String, Map<Integer, RunResult>> entry : scaling.entrySet()) {
+      StringBuilder line = new StringBuilder(String.format("%-55s", entry.getKey()));
+      RunResult single = entry.getValue().get(1);
+      for (int count : threads) {
+        RunResult result = entry.getValue().get(count);
+        if (result == null) {
+          line.append(String.format("%22s", "-"));
+          continue;
+        }
+        double score = result.getPrimaryResult().getScore();
+        double speedup = single == null ? 0 : score / single.getPrimaryResult().getScore();
+        line.append(String.format("%14.1f (%4.1fx)", score, speedup));
+      }
+      System.out.println(line);
+    }
+  }
+}
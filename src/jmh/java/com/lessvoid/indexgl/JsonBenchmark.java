@@ -0,0 +1,104 @@
+package com.lessvoid.indexgl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+import com.lessvoid.indexgl.registry.Registry;
+import com.lessvoid.indexgl.registry.RegistryState;
+import com.lessvoid.indexgl.registry.ResultJson;
+
+/**
+ * Measures the JSON serialization IndexGL does for api/gl/{identifier} (with Gson, streamed and pre-rendered) and
+ * api/find (with Gson and streamed). Run with -prof gc to compare the allocation per request.
+ *
+ * @author void
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+  private static final String[] IDENTIFIERS = {
+    "glBegin", "GL_2D", "glDrawArraysInstancedBaseInstance", "GL_VERTEX_ARRAY", "glGenBuffers", "GL_RGBA8" };
+  private static final String[] QUERIES = { "begin", "glColor", "GL_TEXTURE", "draw arrays" };
+
+  @State(Scope.Benchmark)
+  public static class Rendered {
+    private RenderedResults renderedResults;
+
+    @Setup
+    public void setup(final RegistryState state) {
+      renderedResults = new RenderedResults(state.registry);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Requests {
+    private final Gson gson = new Gson();
+    private final CountingStream out = new CountingStream();
+    private int next;
+
+    int next() {
+      return next++ & 0x7fffffff;
+    }
+  }
+
+  /**
+   * Stands in for the response stream, it counts the bytes without keeping them.
+   */
+  static class CountingStream extends OutputStream {
+    private long count;
+
+    @Override
+    public void write(final int b) {
+      count++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+      count += len;
+    }
+  }
+
+  @Benchmark
+  public String gsonGLInfo(final RegistryState state, final Requests requests) throws Exception {
+    return requests.gson.toJson(state.registry.getGLInfo(IDENTIFIERS[requests.next() % IDENTIFIERS.length]));
+  }
+
+  @Benchmark
+  public long streamGLInfo(final RegistryState state, final Requests requests) throws Exception {
+    ResultJson.write(state.registry.getGLInfo(IDENTIFIERS[requests.next() % IDENTIFIERS.length]), requests.out);
+    return requests.out.count;
+  }
+
+  @Benchmark
+  public byte[] renderedGLInfo(final RegistryState state, final Rendered rendered, final Requests requests) {
+    Registry registry = state.registry;
+    return rendered.renderedResults.json(registry.getOrdinal(IDENTIFIERS[requests.next() % IDENTIFIERS.length]));
+  }
+
+  @Benchmark
+  public String gsonFind(final RegistryState state, final Requests requests) throws Exception {
+    return requests.gson.toJsonTree(state.registry.suggest(QUERIES[requests.next() % QUERIES.length])).toString();
+  }
+
+  @Benchmark
+  public long streamFind(final RegistryState state, final Requests requests) throws IOException {
+    ResultJson.write(state.registry.suggest(QUERIES[requests.next() % QUERIES.length]), requests.out);
+    return requests.out.count;
+  }
+}
@@ -0,0 +1,46 @@
+package com.lessvoid.indexgl.registry;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lessvoid.indexgl.registry.Registry.EnumValueResult;
+
+/**
+ * Measures the lookup of enums by value (api/enum/{value}).
+ *
+ * @author void
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnumValueBenchmark {
+
+  @State(Scope.Thread)
+  public static class Values {
+    private final String[] values = new String[] {
+        "0x0500", "0x8CD6", "1280", "0xFFFFFFFF", "0x1234567", "-2" };
+    private int next;
+
+    String next() {
+      String result = values[next];
+      next = (next + 1) % values.length;
+      return result;
+    }
+  }
+
+  @Benchmark
+  public EnumValueResult getEnumValue(final RegistryState state, final Values values) {
+    return state.registry.getEnumValue(values.next());
+  }
+}
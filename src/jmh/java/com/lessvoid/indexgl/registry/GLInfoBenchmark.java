@@ -0,0 +1,62 @@
+package com.lessvoid.indexgl.registry;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lessvoid.indexgl.registry.Registry.GLResult;
+
+/**
+ * Measures getGLInfo() for commands and enums.
+ *
+ * @author void
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GLInfoBenchmark {
+
+  @State(Scope.Thread)
+  public static class Identifiers {
+    @Param({ "command", "enum" })
+    public String type;
+
+    private String[] identifiers;
+    private int next;
+
+    @Setup
+    public void setup() {
+      if ("command".equals(type)) {
+        identifiers = new String[] {
+            "glBegin", "glTranslatef", "glGenBuffers", "glDrawArraysInstancedBaseInstance", "glDebugMessageCallback",
+            "glcolor3f" };
+      } else {
+        identifiers = new String[] {
+            "GL_2D", "GL_VERTEX_ARRAY", "GL_TEXTURE_2D", "GL_DEBUG_OUTPUT", "GL_RGBA8", "gl_triangles" };
+      }
+    }
+
+    String next() {
+      String result = identifiers[next];
+      next = (next + 1) % identifiers.length;
+      return result;
+    }
+  }
+
+  @Benchmark
+  public GLResult getGLInfo(final RegistryState state, final Identifiers identifiers) throws Exception {
+    return state.registry.getGLInfo(identifiers.next());
+  }
+}
@@ -0,0 +1,58 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a cold Registry build: parsing the gl.xml and loading the compiled registry.
+ *
+ * @author void
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RegistryBuildBenchmark {
+  private PrintStream out;
+
+  @Setup
+  public void setup() {
+    // the parser logs every identifier
+    out = System.out;
+    System.setOut(new PrintStream(new OutputStream() {
+      @Override
+      public void write(final int b) {
+      }
+    }));
+  }
+
+  @TearDown
+  public void tearDown() {
+    System.setOut(out);
+  }
+
+  @Benchmark
+  public Registry parse() throws Exception {
+    return new Registry(null, Registry.DEFAULT_ANALYZER_MODE, null);
+  }
+
+  @Benchmark
+  public Registry compiled() throws Exception {
+    return new Registry();
+  }
+}
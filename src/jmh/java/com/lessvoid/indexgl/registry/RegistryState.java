@@ -0,0 +1,20 @@
+package com.lessvoid.indexgl.registry;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A single Registry shared by all benchmark threads.
+ *
+ * @author void
+ */
+@State(Scope.Benchmark)
+public class RegistryState {
+  public Registry registry;
+
+  @Setup
+  public void setup() throws Exception {
+    registry = new Registry();
+  }
+}
@@ -0,0 +1,38 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the evaluation of set expressions (api/query).
+ *
+ * @author void
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetExpressionBenchmark {
+  private static final String SIMPLE = "gl:3.3:core - gles2:2.0";
+  private static final String COMPLEX =
+      "(all - (gl:4.4 | gl:4.4:core | gles1:1.0 | gles2:3.0)) | (commands & gl:1.0)";
+
+  @Benchmark
+  public int simpleQuery(final RegistryState state) throws IOException {
+    return state.registry.query(SIMPLE).size();
+  }
+
+  @Benchmark
+  public int complexQuery(final RegistryState state) throws IOException {
+    return state.registry.query(COMPLEX).size();
+  }
+}
@@ -0,0 +1,70 @@
+package com.lessvoid.indexgl.registry;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lessvoid.indexgl.registry.Registry.TypeaheadResult;
+
+/**
+ * Measures typeahead() (Lucene) and suggest() (api/find) for different kinds of prefixes. Every thread cycles
+ * through the queries of the selected kind.
+ *
+ * @author void
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypeaheadBenchmark {
+
+  @State(Scope.Thread)
+  public static class Queries {
+    @Param({ "letter", "gl", "camelCase", "phrase" })
+    public String prefix;
+
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setup() {
+      if ("letter".equals(prefix)) {
+        queries = new String[] { "b", "c", "d", "e", "g", "m", "s", "t", "u", "v" };
+      } else if ("gl".equals(prefix)) {
+        queries = new String[] { "g", "gl", "GL", "gl_", "GL_" };
+      } else if ("camelCase".equals(prefix)) {
+        queries = new String[] {
+            "glCo", "glColor3", "glDrawArr", "glTexIm", "GL_TEXTURE_2", "BeginQ", "Buffer", "Uniform4", "FRAMEBUF" };
+      } else {
+        queries = new String[] { "begin query", "draw arrays", "texture 2d", "vertex attrib", "color 3", "gl tex" };
+      }
+    }
+
+    String next() {
+      String result = queries[next];
+      next = (next + 1) % queries.length;
+      return result;
+    }
+  }
+
+  @Benchmark
+  public TypeaheadResult typeahead(final RegistryState state, final Queries queries) throws Exception {
+    return state.registry.typeahead(queries.next());
+  }
+
+  @Benchmark
+  public TypeaheadResult suggest(final RegistryState state, final Queries queries) throws Exception {
+    return state.registry.suggest(queries.next());
+  }
+}
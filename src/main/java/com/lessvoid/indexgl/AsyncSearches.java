@@ -0,0 +1,162 @@
+package com.lessvoid.indexgl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.ConnectionCallback;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * Runs the searches of suspended requests on a bounded pool so that the container threads are not blocked. A
+ * search that has not started yet is dropped when the client disconnects or when a newer search of the same
+ * session (the typeahead of a single page) replaces it - while typing only the last query matters. Running
+ * searches are never interrupted (an interrupt would close the channels of the index) but their result is not sent
+ * anymore. When the queue is full the request is answered with 503 right away.
+ *
+ * @author void
+ */
+class AsyncSearches {
+  private final ThreadPoolExecutor executor;
+  private final ConcurrentMap<String, Search> latest = new ConcurrentHashMap<String, Search>();
+
+  private final AtomicLong completed = new AtomicLong();
+  private final AtomicLong superseded = new AtomicLong();
+  private final AtomicLong disconnected = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+
+  /**
+   * Create a new AsyncSearches.
+   *
+   * @param threads the number of searches running at the same time
+   * @param queueSize the number of searches waiting for a thread
+   */
+  AsyncSearches(final int threads, final int queueSize) {
+    final AtomicInteger count = new AtomicInteger();
+    executor = new ThreadPoolExecutor(
+        threads,
+        threads,
+        0,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(queueSize),
+        new ThreadFactory() {
+          @Override
+          public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(runnable, "indexgl-search-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+  }
+
+  /**
+   * Run the search and resume the response with its result.
+   *
+   * @param response the suspended response
+   * @param session the session the search belongs to or null if it should never be replaced
+   * @param search the search
+   */
+  void submit(final AsyncResponse response, final String session, final Callable<Response> search) {
+    final Search task = new Search(response, session, search);
+    response.register(new ConnectionCallback() {
+      @Override
+      public void onDisconnect(final AsyncResponse disconnect) {
+        if (task.cancel(false)) {
+          disconnected.incrementAndGet();
+        }
+      }
+    });
+    if (session != null) {
+      Search previous = latest.put(session, task);
+      if (previous != null && previous.cancel(false)) {
+        superseded.incrementAndGet();
+        previous.response.cancel();
+      }
+    }
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      rejected.incrementAndGet();
+      if (task.cancel(false)) {
+        response.resume(Response.status(Status.SERVICE_UNAVAILABLE).build());
+      }
+    }
+  }
+
+  /**
+   * Stop all threads. Searches waiting for a thread are dropped.
+   */
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * @return the number of searches that finished and were answered
+   */
+  long getCompleted() {
+    return completed.get();
+  }
+
+  /**
+   * @return the number of searches replaced by a newer search of the same session
+   */
+  long getSuperseded() {
+    return superseded.get();
+  }
+
+  /**
+   * @return the number of searches dropped because the client disconnected
+   */
+  long getDisconnected() {
+    return disconnected.get();
+  }
+
+  /**
+   * @return the number of searches rejected because the queue was full
+   */
+  long getRejected() {
+    return rejected.get();
+  }
+
+  private class Search extends FutureTask<Response> {
+    private final AsyncResponse response;
+    private final String session;
+
+    Search(final AsyncResponse response, final String session, final Callable<Response> search) {
+      super(search);
+      this.response = response;
+      this.session = session;
+    }
+
+    @Override
+    protected void done() {
+      if (session != null) {
+        latest.remove(session, this);
+      }
+      if (isCancelled()) {
+        // whoever cancelled the search took care of the response
+        return;
+      }
+      try {
+        Response result = get();
+        completed.incrementAndGet();
+        response.resume(result);
+      } catch (ExecutionException e) {
+        response.resume(e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
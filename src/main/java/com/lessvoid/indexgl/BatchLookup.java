@@ -0,0 +1,128 @@
+package com.lessvoid.indexgl;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+import com.lessvoid.indexgl.registry.Registry;
+import com.lessvoid.indexgl.registry.ResultJson;
+import com.lessvoid.indexgl.registry.SupportAggregator;
+
+/**
+ * Answers a batch of identifiers. The identifiers are read one after the other from a JSON array and the result for
+ * each identifier is written as soon as it has been read so that neither the request nor the response is ever kept
+ * in memory completely. The summary with the combined support of all identifiers comes last.
+ *
+ * <pre>
+ * {
+ *   "results":[
+ *     {"identifier":"glBegin","result":{...}},
+ *     {"identifier":"glDebugMessageCallbackARB","result":{...}},
+ *     {"identifier":"glUnknown","result":null}
+ *   ],
+ *   "summary":{
+ *     "identifiers":1,
+ *     "extensionOnly":1,
+ *     "unknown":1,
+ *     "minimum":{"OpenGL":"1.0",...},
+ *     "result":{...}
+ *   }
+ * }
+ * </pre>
+ *
+ * The minimum contains the first version supporting all identifiers for every row of the result that has one.
+ * Identifiers only defined by extensions get their result but are not part of any version, so they are counted as
+ * extensionOnly and left out of the minimum.
+ * When the request is not a valid JSON array of strings the summary contains an "error" with the reason since the
+ * response status has already been sent.
+ *
+ * @author void
+ */
+class BatchLookup implements StreamingOutput {
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final byte[] NULL = "null".getBytes(UTF8);
+
+  private final Gson gson = new Gson();
+  private final Registry registry;
+  private final RenderedResults renderedResults;
+  private final InputStream request;
+
+  BatchLookup(final Registry registry, final RenderedResults renderedResults, final InputStream request) {
+    this.registry = registry;
+    this.renderedResults = renderedResults;
+    this.request = request;
+  }
+
+  @Override
+  public void write(final OutputStream output) throws IOException, WebApplicationException {
+    OutputStream out = new BufferedOutputStream(output, 16 * 1024);
+    SupportAggregator aggregator = registry.newSupportAggregator();
+    String error = null;
+
+    write(out, "{\"results\":[");
+    JsonReader reader = new JsonReader(new InputStreamReader(request, UTF8));
+    try {
+      reader.beginArray();
+      boolean first = true;
+      while (reader.hasNext()) {
+        String identifier = reader.nextString();
+        int ordinal = aggregator.add(identifier);
+        if (!first) {
+          write(out, ",");
+        }
+        first = false;
+        write(out, "{\"identifier\":");
+        write(out, gson.toJson(identifier));
+        write(out, ",\"result\":");
+        if (ordinal == -1) {
+          out.write(NULL);
+        } else if (ordinal < registry.getOrdinalCount()) {
+          out.write(renderedResults.json(ordinal));
+        } else {
+          // identifiers only defined by extensions are not rendered in advance
+          out.write(ResultJson.toBytes(registry.getGLInfo(ordinal)));
+        }
+        write(out, "}");
+      }
+      reader.endArray();
+    } catch (IllegalStateException e) {
+      // not an array of strings
+      error = e.getMessage();
+    } catch (MalformedJsonException e) {
+      error = e.getMessage();
+    } catch (EOFException e) {
+      error = "unexpected end of request";
+    }
+
+    write(out, "],\"summary\":{\"identifiers\":");
+    write(out, Integer.toString(aggregator.getCount()));
+    write(out, ",\"extensionOnly\":");
+    write(out, Integer.toString(aggregator.getExtensionOnly()));
+    write(out, ",\"unknown\":");
+    write(out, Integer.toString(aggregator.getUnknown()));
+    write(out, ",\"minimum\":");
+    write(out, gson.toJson(aggregator.getMinimumVersions()));
+    write(out, ",\"result\":");
+    write(out, gson.toJson(aggregator.getResult()));
+    if (error != null) {
+      write(out, ",\"error\":");
+      write(out, gson.toJson(error));
+    }
+    write(out, "}}");
+    out.flush();
+  }
+
+  private static void write(final OutputStream out, final String s) throws IOException {
+    out.write(s.getBytes(UTF8));
+  }
+}
@@ -1,38 +1,130 @@
 package com.lessvoid.indexgl;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.lang.reflect.Method;
 import java.net.URI;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Singleton;
 import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.CacheControl;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.commons.lang3.StringEscapeUtils;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import com.lessvoid.indexgl.RegistryManager.Served;
+import com.lessvoid.indexgl.registry.FederatedRegistry;
+import com.lessvoid.indexgl.registry.IdentifierSet;
 import com.lessvoid.indexgl.registry.Registry;
+import com.lessvoid.indexgl.registry.Registry.EnumValueResult;
+import com.lessvoid.indexgl.registry.Registry.ExtensionResult;
 import com.lessvoid.indexgl.registry.Registry.GLResult;
+import com.lessvoid.indexgl.registry.Registry.GroupResult;
+import com.lessvoid.indexgl.registry.Registry.GroupsResult;
+import com.lessvoid.indexgl.registry.Registry.SignatureResult;
+import com.lessvoid.indexgl.registry.Registry.TypeaheadResult;
+import com.lessvoid.indexgl.registry.SourceScanner.ScanResult;
 
 @Path("")
 @Singleton
 public class IndexGL {
+  /**
+   * System property with the directory to keep registry snapshots in. When it is not set the registry is parsed on
+   * every start.
+   */
+  private static final String SNAPSHOT_DIRECTORY_PROPERTY = "indexgl.snapshot.dir";
+
+  /**
+   * System property with the gl.xml file to load the registry from. The file is checked for changes every
+   * RELOAD_INTERVAL_PROPERTY seconds and the registry is reloaded in the background when it has changed. When it is
+   * not set the gl.xml bundled with the application is used and never reloaded.
+   */
+  private static final String REGISTRY_FILE_PROPERTY = "indexgl.registry.file";
+
+  /**
+   * System property with the number of seconds between checks of the REGISTRY_FILE_PROPERTY file.
+   */
+  private static final String RELOAD_INTERVAL_PROPERTY = "indexgl.registry.reload.interval";
+  private static final long DEFAULT_RELOAD_INTERVAL = 60;
+
+  /**
+   * System property with a comma separated list of registry files (gl.xml, egl.xml, glx.xml, wgl.xml, ...) to search
+   * at once with the registries/... calls. When it is not set these calls answer 404.
+   */
+  private static final String FEDERATED_FILES_PROPERTY = "indexgl.registries";
+
+  /**
+   * System property with the number of milliseconds a registries/... call waits for each registry.
+   */
+  private static final String FEDERATED_BUDGET_PROPERTY = "indexgl.registries.budget";
+  private static final long DEFAULT_FEDERATED_BUDGET = 50;
+
+  /**
+   * The gl/{identifier} and gl-table/{identifier} responses never change for the same registry so they can be
+   * cached for a long time (one year).
+   */
+  private static final int MAX_AGE = 365 * 24 * 60 * 60;
+
+  /**
+   * The number of searches waiting for one of the search threads before requests are rejected.
+   */
+  private static final int SEARCH_QUEUE_SIZE = 1000;
+
+  /**
+   * The maximum number of identifiers returned by a single api/query call.
+   */
+  private static final int MAX_QUERY_PAGE = 1000;
+
   private final Gson gson = new Gson();
-  private final Registry registry;
+  private final RegistryManager registries;
+  private final ScheduledExecutorService reloader;
+  private final FederatedRegistry federated;
+
+  /**
+   * True when the gl.xml bundled with the application is served, only then the static gl/{identifier}.json files
+   * generated at build time match the answers of the API.
+   */
+  private final boolean bundledRegistry;
+
+  private final Metrics metrics = new Metrics();
+  private final AsyncSearches searches =
+      new AsyncSearches(Runtime.getRuntime().availableProcessors(), SEARCH_QUEUE_SIZE);
 
   @Context
   private UriInfo uriInfo;
@@ -40,10 +132,42 @@ public class IndexGL {
   @Context
   private HttpServletRequest request;
 
+  @Context
+  private Request jaxrsRequest;
+
   public IndexGL() throws Exception {
     long now = System.nanoTime();
-    registry = new Registry();
-    System.out.println("Registry parsed in: " + (System.nanoTime() - now)/1000000000f + "sec");
+    File registryFile = registryFile();
+    Registry registry;
+    if (registryFile != null) {
+      registry = Registry.openIfChanged(null, registryFile, snapshotDirectory());
+    } else {
+      registry = new Registry(snapshotDirectory());
+    }
+    registries = new RegistryManager(registry, registryFile, snapshotDirectory());
+    bundledRegistry = registryFile == null;
+    System.out.println("Registry loaded in: " + (System.nanoTime() - now)/1000000000f + "sec");
+    reloader = registryFile != null ? startReloader(reloadInterval()) : null;
+    federated = openFederated();
+  }
+
+  /**
+   * @return the request metrics
+   */
+  Metrics metrics() {
+    return metrics;
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    searches.shutdown();
+    if (reloader != null) {
+      reloader.shutdownNow();
+    }
+    registries.close();
+    if (federated != null) {
+      federated.close();
+    }
   }
 
   @GET
@@ -51,9 +175,14 @@ public class IndexGL {
   public Response getMyResources() throws Exception {
     StringBuilder result = new StringBuilder();
 
-    addMethodLink(result, IndexGL.class.getMethod("getFind", String.class), "getFind", "q", "{search}");
-    addMethodLink(result, IndexGL.class.getMethod("getJson", String.class), "getJson");
-    addMethodLink(result, IndexGL.class.getMethod("getHtml", String.class), "getHtml");
+    addMethodLink(result, IndexGL.class.getMethod("getFind", String.class, int.class, boolean.class, String.class, AsyncResponse.class), "getFind", "q", "{search}");
+    addMethodLink(result, IndexGL.class.getMethod("getJson", String.class, AsyncResponse.class), "getJson");
+    addMethodLink(result, IndexGL.class.getMethod("getHtml", String.class, AsyncResponse.class), "getHtml");
+    addMethodLink(result, IndexGL.class.getMethod("getSignature", String.class, AsyncResponse.class), "getSignature");
+    addMethodLink(result, IndexGL.class.getMethod("getExtension", String.class, AsyncResponse.class), "getExtension");
+    addMethodLink(result, IndexGL.class.getMethod("getEnumValue", String.class, AsyncResponse.class), "getEnumValue");
+    addMethodLink(result, IndexGL.class.getMethod("getGroup", String.class, AsyncResponse.class), "getGroup");
+    addMethodLink(result, IndexGL.class.getMethod("getGroups", String.class, AsyncResponse.class), "getGroups");
 
     return Response.ok(getAPIContent(result.toString()), MediaType.TEXT_HTML).build();
   }
@@ -61,25 +190,504 @@ public class IndexGL {
   @GET
   @Path("find")
   @Produces(MediaType.APPLICATION_JSON)
-  public Response getFind(@QueryParam(value="q") final String q) throws Exception {
-    if (q == null || q.isEmpty()) {
-      return Response.status(Status.BAD_REQUEST).build();
+  public void getFind(
+      @QueryParam(value="q") final String q,
+      @QueryParam(value="n") @DefaultValue("10") final int n,
+      @QueryParam(value="fuzzy") @DefaultValue("true") final boolean fuzzy,
+      @QueryParam(value="session") final String session,
+      @Suspended final AsyncResponse response) {
+    if (q == null || q.trim().isEmpty() || n < 1) {
+      response.resume(Response.status(Status.BAD_REQUEST).build());
+      return;
     }
-    return Response.ok(gson.toJsonTree(registry.typeahead(q)).toString(), MediaType.APPLICATION_JSON).build();
+    final long start = System.nanoTime();
+    searches.submit(response, session, new Callable<Response>() {
+      @Override
+      public Response call() throws Exception {
+        return find(q, n, fuzzy, start);
+      }
+    });
   }
 
   @GET
   @Path("gl/{identifier}")
   @Produces(MediaType.APPLICATION_JSON)
-  public String getJson(@PathParam("identifier") final String identifier) throws Exception {
-    return gson.toJson(registry.getGLInfo(identifier));
+  public void getJson(
+      @PathParam("identifier") final String identifier,
+      @Suspended final AsyncResponse response) throws Exception {
+    final long start = System.nanoTime();
+    // the request is only available on the container thread
+    ResponseBuilder notModified = jaxrsRequest.evaluatePreconditions(servedTag(false));
+    if (notModified != null) {
+      metrics.notModified(Metrics.GL);
+      response.resume(cached(notModified, servedTag(false)));
+      metrics.request(Metrics.GL).recordSince(start);
+      return;
+    }
+    searches.submit(response, null, new Callable<Response>() {
+      @Override
+      public Response call() throws Exception {
+        return json(identifier, start);
+      }
+    });
   }
 
   @GET
   @Path("gl-table/{identifier}")
   @Produces(MediaType.TEXT_HTML)
-  public String getHtml(@PathParam("identifier") final String identifier) throws Exception {
-    return translateToStatic(registry.getGLInfo(identifier));
+  public void getHtml(
+      @PathParam("identifier") final String identifier,
+      @Suspended final AsyncResponse response) throws Exception {
+    final long start = System.nanoTime();
+    ResponseBuilder notModified = jaxrsRequest.evaluatePreconditions(servedTag(true));
+    if (notModified != null) {
+      metrics.notModified(Metrics.GL_TABLE);
+      response.resume(cached(notModified, servedTag(true)));
+      metrics.request(Metrics.GL_TABLE).recordSince(start);
+      return;
+    }
+    searches.submit(response, null, new Callable<Response>() {
+      @Override
+      public Response call() throws Exception {
+        return html(identifier, start);
+      }
+    });
+  }
+
+  @GET
+  @Path("gl/{identifier}/signature")
+  @Produces(MediaType.APPLICATION_JSON)
+  public void getSignature(@PathParam("identifier") final String identifier, @Suspended final AsyncResponse response) {
+    searches.submit(response, null, new Callable<Response>() {
+      @Override
+      public Response call() throws Exception {
+        Served served = registries.acquire();
+        try {
+          SignatureResult result = served.registry.getSignature(identifier);
+          if (result == null) {
+            return Response.status(Status.NOT_FOUND).build();
+          }
+          return Response.ok(gson.toJson(result), MediaType.APPLICATION_JSON).build();
+        } finally {
+          registries.release(served);
+        }
+      }
+    });
+  }
+
+  @GET
+  @Path("extension/{name}")
+  @Produces(MediaType.APPLICATION_JSON)
+  public void getExtension(@PathParam("name") final String name, @Suspended final AsyncResponse response) {
+    searches.submit(response, null, new Callable<Response>() {
+      @Override
+      public Response call() throws Exception {
+        Served served = registries.acquire();
+        try {
+          ExtensionResult result = served.registry.getExtension(name);
+          if (result == null) {
+            return Response.status(Status.NOT_FOUND).build();
+          }
+          return Response.ok(gson.toJson(result), MediaType.APPLICATION_JSON).build();
+        } finally {
+          registries.release(served);
+        }
+      }
+    });
+  }
+
+  @GET
+  @Path("enum/{value}")
+  @Produces(MediaType.APPLICATION_JSON)
+  public void getEnumValue(@PathParam("value") final String value, @Suspended final AsyncResponse response) {
+    searches.submit(response, null, new Callable<Response>() {
+      @Override
+      public Response call() throws Exception {
+        Served served = registries.acquire();
+        try {
+          EnumValueResult result = served.registry.getEnumValue(value);
+          if (result == null) {
+            return Response.status(Status.NOT_FOUND).build();
+          }
+          return Response.ok(gson.toJson(result), MediaType.APPLICATION_JSON).build();
+        } catch (NumberFormatException e) {
+          return Response.status(Status.BAD_REQUEST).entity(e.getMessage()).type(MediaType.TEXT_PLAIN).build();
+        } finally {
+          registries.release(served);
+        }
+      }
+    });
+  }
+
+  @GET
+  @Path("group/{name}")
+  @Produces(MediaType.APPLICATION_JSON)
+  public void getGroup(@PathParam("name") final String name, @Suspended final AsyncResponse response) {
+    searches.submit(response, null, new Callable<Response>() {
+      @Override
+      public Response call() throws Exception {
+        Served served = registries.acquire();
+        try {
+          GroupResult result = served.registry.getGroup(name);
+          if (result == null) {
+            return Response.status(Status.NOT_FOUND).build();
+          }
+          return Response.ok(gson.toJson(result), MediaType.APPLICATION_JSON).build();
+        } finally {
+          registries.release(served);
+        }
+      }
+    });
+  }
+
+  @GET
+  @Path("gl/{identifier}/groups")
+  @Produces(MediaType.APPLICATION_JSON)
+  public void getGroups(@PathParam("identifier") final String identifier, @Suspended final AsyncResponse response) {
+    searches.submit(response, null, new Callable<Response>() {
+      @Override
+      public Response call() throws Exception {
+        Served served = registries.acquire();
+        try {
+          GroupsResult result = served.registry.getGroups(identifier);
+          if (result == null) {
+            return Response.status(Status.NOT_FOUND).build();
+          }
+          return Response.ok(gson.toJson(result), MediaType.APPLICATION_JSON).build();
+        } finally {
+          registries.release(served);
+        }
+      }
+    });
+  }
+
+  @GET
+  @Path("query")
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response getQuery(
+      @QueryParam(value="q") final String q,
+      @QueryParam(value="offset") @DefaultValue("0") final int offset,
+      @QueryParam(value="n") @DefaultValue("100") final int n) throws Exception {
+    if (q == null || q.trim().isEmpty() || offset < 0 || n < 1) {
+      return Response.status(Status.BAD_REQUEST).build();
+    }
+    final IdentifierSet result;
+    final List<String> page = new ArrayList<String>();
+    Served served = registries.acquire();
+    try {
+      result = served.registry.query(q);
+      result.names(offset, Math.min(n, MAX_QUERY_PAGE), page);
+    } catch (IllegalArgumentException e) {
+      return Response.status(Status.BAD_REQUEST).entity(e.getMessage()).type(MediaType.TEXT_PLAIN).build();
+    } finally {
+      registries.release(served);
+    }
+
+    StreamingOutput output = new StreamingOutput() {
+      @Override
+      public void write(final OutputStream out) throws IOException {
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, "UTF-8"));
+        writer.beginObject();
+        writer.name("query").value(q);
+        writer.name("total").value(result.size());
+        writer.name("offset").value(offset);
+        writer.name("result").beginArray();
+        for (String name : page) {
+          writer.value(name);
+        }
+        writer.endArray();
+        writer.endObject();
+        writer.flush();
+      }
+    };
+    return Response.ok(output, MediaType.APPLICATION_JSON).build();
+  }
+
+  @GET
+  @Path("diff")
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response getDiff(
+      @QueryParam(value="from") final String from,
+      @QueryParam(value="to") final String to,
+      @QueryParam(value="api") @DefaultValue("gl") final String api,
+      @QueryParam(value="profile") @DefaultValue("compatibility") final String profile) throws Exception {
+    if (from == null || to == null) {
+      return Response.status(Status.BAD_REQUEST).build();
+    }
+    Served served = registries.acquire();
+    try {
+      return Response.ok(
+          gson.toJson(served.registry.diff(api, profile, from, to)), MediaType.APPLICATION_JSON).build();
+    } catch (IllegalArgumentException e) {
+      return Response.status(Status.BAD_REQUEST).entity(e.getMessage()).type(MediaType.TEXT_PLAIN).build();
+    } finally {
+      registries.release(served);
+    }
+  }
+
+  @GET
+  @Path("query/sets")
+  @Produces(MediaType.APPLICATION_JSON)
+  public String getQuerySets() throws Exception {
+    Served served = registries.acquire();
+    try {
+      return gson.toJson(served.registry.getQuerySets());
+    } finally {
+      registries.release(served);
+    }
+  }
+
+  @POST
+  @Path("gl/batch")
+  @Consumes(MediaType.APPLICATION_JSON)
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response postBatch(final InputStream identifiers) throws Exception {
+    StreamingOutput output = new StreamingOutput() {
+      @Override
+      public void write(final OutputStream out) throws IOException {
+        // the response is streamed after this method returned so the registry is acquired while writing
+        Served served = registries.acquire();
+        try {
+          new BatchLookup(served.registry, served.renderedResults, identifiers).write(out);
+        } finally {
+          registries.release(served);
+        }
+      }
+    };
+    return Response.ok(output, MediaType.APPLICATION_JSON).build();
+  }
+
+  @POST
+  @Path("scan")
+  @Consumes({ MediaType.TEXT_PLAIN, MediaType.APPLICATION_OCTET_STREAM })
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response postScan(final InputStream source) throws Exception {
+    Served served = registries.acquire();
+    try {
+      // identifiers are plain ASCII, ISO-8859-1 accepts any byte sequence
+      ScanResult result = served.registry.newSourceScanner().scan(new InputStreamReader(source, "ISO-8859-1"));
+      return Response.ok(gson.toJson(result), MediaType.APPLICATION_JSON).build();
+    } finally {
+      registries.release(served);
+    }
+  }
+
+  @GET
+  @Path("registries")
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response getRegistries() throws Exception {
+    if (federated == null) {
+      return Response.status(Status.NOT_FOUND).build();
+    }
+    return Response.ok(gson.toJson(federated.getNames()), MediaType.APPLICATION_JSON).build();
+  }
+
+  @GET
+  @Path("registries/find")
+  @Produces(MediaType.APPLICATION_JSON)
+  public void getFederatedFind(
+      @QueryParam(value="q") final String q,
+      @QueryParam(value="n") @DefaultValue("10") final int n,
+      @QueryParam(value="session") final String session,
+      @Suspended final AsyncResponse response) {
+    if (federated == null) {
+      response.resume(Response.status(Status.NOT_FOUND).build());
+      return;
+    }
+    if (q == null || q.trim().isEmpty() || n < 1) {
+      response.resume(Response.status(Status.BAD_REQUEST).build());
+      return;
+    }
+    // a separate session key so that a federated search doesn't replace a search of api/find
+    searches.submit(response, session == null ? null : "registries:" + session, new Callable<Response>() {
+      @Override
+      public Response call() throws Exception {
+        return Response.ok(gson.toJson(federated.suggest(q, n)), MediaType.APPLICATION_JSON).build();
+      }
+    });
+  }
+
+  @GET
+  @Path("registries/gl/{identifier}")
+  @Produces(MediaType.APPLICATION_JSON)
+  public void getFederatedJson(
+      @PathParam("identifier") final String identifier,
+      @Suspended final AsyncResponse response) {
+    if (federated == null) {
+      response.resume(Response.status(Status.NOT_FOUND).build());
+      return;
+    }
+    searches.submit(response, null, new Callable<Response>() {
+      @Override
+      public Response call() throws Exception {
+        return Response.ok(gson.toJson(federated.getGLInfo(identifier)), MediaType.APPLICATION_JSON).build();
+      }
+    });
+  }
+
+  @GET
+  @Path("static-site")
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response getStaticSite() throws Exception {
+    return Response.ok(gson.toJson(bundledRegistry), MediaType.APPLICATION_JSON).build();
+  }
+
+  @GET
+  @Path("metrics")
+  @Produces(MediaType.TEXT_PLAIN)
+  public Response getMetrics() throws Exception {
+    StringBuilder result = new StringBuilder();
+    Served served = registries.acquire();
+    try {
+      metrics.write(result, served.registry, served.renderedResults, searches);
+    } finally {
+      registries.release(served);
+    }
+    return Response.ok(result.toString(), Metrics.CONTENT_TYPE).build();
+  }
+
+  /**
+   * Check the registry file for changes at a fixed interval. maybeRefresh() builds the new registry on the reloader
+   * thread while the requests are still served by the current one.
+   */
+  private ScheduledExecutorService startReloader(final long intervalSeconds) {
+    ScheduledExecutorService result = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(final Runnable runnable) {
+        Thread thread = new Thread(runnable, "indexgl-registry-reloader");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+      }
+    });
+    result.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          registries.maybeRefresh();
+        } catch (Exception e) {
+          // keep serving the current registry and try again with the next change of the file
+          e.printStackTrace();
+        }
+      }
+    }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    return result;
+  }
+
+  private Response find(final String q, final int n, final boolean fuzzy, final long start) throws Exception {
+    Served served = registries.acquire();
+    try {
+      // written by the JsonResultWriter
+      TypeaheadResult result = served.registry.suggest(q, n, fuzzy);
+      return Response.ok(result, MediaType.APPLICATION_JSON).build();
+    } finally {
+      registries.release(served);
+      metrics.request(Metrics.FIND).recordSince(start);
+    }
+  }
+
+  private Response json(final String identifier, final long start) throws Exception {
+    Served served = registries.acquire();
+    try {
+      int ordinal = served.registry.getOrdinal(identifier);
+      if (ordinal == -1) {
+        GLResult result = served.registry.getGLInfo(identifier);
+        if (result == null) {
+          return Response.ok(gson.toJson(null), MediaType.APPLICATION_JSON).build();
+        }
+        // written by the JsonResultWriter
+        return Response.ok(result, MediaType.APPLICATION_JSON).build();
+      }
+      long serializationStart = System.nanoTime();
+      byte[] json = served.renderedResults.json(ordinal);
+      metrics.serialization(Metrics.GL).recordSince(serializationStart);
+      return cached(
+          Response.ok(json, MediaType.APPLICATION_JSON_TYPE.withCharset("UTF-8")),
+          served.renderedResults.getJsonTag());
+    } finally {
+      registries.release(served);
+      metrics.request(Metrics.GL).recordSince(start);
+    }
+  }
+
+  private Response html(final String identifier, final long start) throws Exception {
+    Served served = registries.acquire();
+    try {
+      int ordinal = served.registry.getOrdinal(identifier);
+      if (ordinal == -1) {
+        GLResult result = served.registry.getGLInfo(identifier);
+        long serializationStart = System.nanoTime();
+        String html = translateToStatic(result);
+        metrics.serialization(Metrics.GL_TABLE).recordSince(serializationStart);
+        return Response.ok(html, MediaType.TEXT_HTML).build();
+      }
+      long serializationStart = System.nanoTime();
+      byte[] html = served.renderedResults.table(ordinal);
+      metrics.serialization(Metrics.GL_TABLE).recordSince(serializationStart);
+      return cached(
+          Response.ok(html, MediaType.TEXT_HTML_TYPE.withCharset("UTF-8")),
+          served.renderedResults.getTableTag());
+    } finally {
+      registries.release(served);
+      metrics.request(Metrics.GL_TABLE).recordSince(start);
+    }
+  }
+
+  /**
+   * @param table true for the tag of the gl-table/{identifier} responses, false for gl/{identifier}
+   * @return the ETag of the registry currently served
+   */
+  private EntityTag servedTag(final boolean table) throws IOException {
+    Served served = registries.acquire();
+    try {
+      return table ? served.renderedResults.getTableTag() : served.renderedResults.getJsonTag();
+    } finally {
+      registries.release(served);
+    }
+  }
+
+  private Response cached(final ResponseBuilder response, final EntityTag tag) {
+    CacheControl cacheControl = new CacheControl();
+    cacheControl.setMaxAge(MAX_AGE);
+    return response.tag(tag).cacheControl(cacheControl).build();
+  }
+
+  private FederatedRegistry openFederated() throws Exception {
+    String files = System.getProperty(FEDERATED_FILES_PROPERTY);
+    if (files == null || files.trim().isEmpty()) {
+      return null;
+    }
+    List<File> registryFiles = new ArrayList<File>();
+    for (String file : files.split(",")) {
+      if (!file.trim().isEmpty()) {
+        registryFiles.add(new File(file.trim()));
+      }
+    }
+    long now = System.nanoTime();
+    FederatedRegistry result = FederatedRegistry.open(
+        registryFiles, snapshotDirectory(), Long.getLong(FEDERATED_BUDGET_PROPERTY, DEFAULT_FEDERATED_BUDGET));
+    System.out.println("Registries " + result.getNames() + " loaded in: " + (System.nanoTime() - now)/1000000000f + "sec");
+    return result;
+  }
+
+  private File registryFile() {
+    String registryFile = System.getProperty(REGISTRY_FILE_PROPERTY);
+    if (registryFile == null || registryFile.isEmpty()) {
+      return null;
+    }
+    return new File(registryFile);
+  }
+
+  private long reloadInterval() {
+    return Long.getLong(RELOAD_INTERVAL_PROPERTY, DEFAULT_RELOAD_INTERVAL);
+  }
+
+  private File snapshotDirectory() {
+    String snapshotDirectory = System.getProperty(SNAPSHOT_DIRECTORY_PROPERTY);
+    if (snapshotDirectory == null || snapshotDirectory.isEmpty()) {
+      return null;
+    }
+    return new File(snapshotDirectory);
   }
 
   private void addMethodLink(final StringBuilder result, final Method method, final String message, final String queryName, final String queryValue) {
@@ -112,12 +720,16 @@ public class IndexGL {
     result.append(url.toString()
         .replaceAll("%7Bidentifier%7D", res.getString(message + ".name"))
         .replaceAll("%7Bsearch%7D", res.getString(message + ".name"))
+        .replaceAll("%7Bname%7D", res.getString(message + ".name"))
+        .replaceAll("%7Bvalue%7D", res.getString(message + ".name"))
         .replaceAll(".void256.eu.cloudbees.net", "")
         );
     result.append("\">");
     result.append(url.toString()
         .replaceAll("%7Bidentifier%7D", res.getString(message + ".name"))
         .replaceAll("%7Bsearch%7D", res.getString(message + ".name"))
+        .replaceAll("%7Bname%7D", res.getString(message + ".name"))
+        .replaceAll("%7Bvalue%7D", res.getString(message + ".name"))
         .replaceAll(".void256.eu.cloudbees.net", "")
         );
     result.append("</a>");
@@ -10,7 +10,9 @@ public class IndexGLApplication extends Application {
   public Set<Object> getSingletons() {
     Set<Object> s = new HashSet<Object>();
     try {
-      s.add(new IndexGL());
+      IndexGL indexGL = new IndexGL();
+      s.add(indexGL);
+      s.add(new JsonResultWriter(indexGL.metrics()));
     } catch (Exception e) {
       e.printStackTrace();
     }
@@ -0,0 +1,75 @@
+package com.lessvoid.indexgl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import com.lessvoid.indexgl.registry.Registry.GLResult;
+import com.lessvoid.indexgl.registry.Registry.TypeaheadResult;
+import com.lessvoid.indexgl.registry.ResultJson;
+
+/**
+ * Writes the TypeaheadResult and GLResult entities of the Web-API straight to the response stream with ResultJson
+ * instead of rendering them to a String with Gson first. The time spent writing is recorded as the serialization
+ * time of the endpoint.
+ *
+ * @author void
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+class JsonResultWriter implements MessageBodyWriter<Object> {
+  private static final MediaType JSON_UTF8 = MediaType.APPLICATION_JSON_TYPE.withCharset("UTF-8");
+
+  private final Metrics metrics;
+
+  JsonResultWriter(final Metrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public boolean isWriteable(
+      final Class<?> type,
+      final Type genericType,
+      final Annotation[] annotations,
+      final MediaType mediaType) {
+    return TypeaheadResult.class.equals(type) || GLResult.class.equals(type);
+  }
+
+  @Override
+  public long getSize(
+      final Object t,
+      final Class<?> type,
+      final Type genericType,
+      final Annotation[] annotations,
+      final MediaType mediaType) {
+    // unknown, the response is streamed
+    return -1;
+  }
+
+  @Override
+  public void writeTo(
+      final Object t,
+      final Class<?> type,
+      final Type genericType,
+      final Annotation[] annotations,
+      final MediaType mediaType,
+      final MultivaluedMap<String, Object> httpHeaders,
+      final OutputStream entityStream) throws IOException {
+    httpHeaders.putSingle("Content-Type", JSON_UTF8);
+    long start = System.nanoTime();
+    if (t instanceof TypeaheadResult) {
+      ResultJson.write((TypeaheadResult) t, entityStream);
+      metrics.serialization(Metrics.FIND).recordSince(start);
+    } else {
+      ResultJson.write((GLResult) t, entityStream);
+      metrics.serialization(Metrics.GL).recordSince(start);
+    }
+  }
+}
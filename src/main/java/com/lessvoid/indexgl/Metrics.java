@@ -0,0 +1,181 @@
+package com.lessvoid.indexgl;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.lessvoid.indexgl.registry.LatencyHistogram;
+import com.lessvoid.indexgl.registry.Registry;
+
+/**
+ * The request metrics of the Web-API. All durations are recorded into LatencyHistograms so recording doesn't lock
+ * and costs about the same as the System.nanoTime() calls. The metrics are written in the Prometheus text format
+ * (summaries with percentiles, counters and gauges) so that any scraper understanding that format can collect them.
+ *
+ * @author void
+ */
+class Metrics {
+  static final String FIND = "find";
+  static final String GL = "gl";
+  static final String GL_TABLE = "gl-table";
+
+  /**
+   * The content type of the Prometheus text format.
+   */
+  static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+  private final Map<String, LatencyHistogram> requestTimes = new LinkedHashMap<String, LatencyHistogram>();
+  private final Map<String, LatencyHistogram> serializationTimes = new LinkedHashMap<String, LatencyHistogram>();
+  private final Map<String, AtomicLong> notModified = new LinkedHashMap<String, AtomicLong>();
+
+  Metrics() {
+    for (String endpoint : new String[] { FIND, GL, GL_TABLE }) {
+      requestTimes.put(endpoint, new LatencyHistogram());
+      serializationTimes.put(endpoint, new LatencyHistogram());
+      notModified.put(endpoint, new AtomicLong());
+    }
+  }
+
+  /**
+   * @param endpoint the endpoint
+   * @return the histogram of the complete request time of the endpoint
+   */
+  LatencyHistogram request(final String endpoint) {
+    return requestTimes.get(endpoint);
+  }
+
+  /**
+   * @param endpoint the endpoint
+   * @return the histogram of the time spent creating the response body of the endpoint
+   */
+  LatencyHistogram serialization(final String endpoint) {
+    return serializationTimes.get(endpoint);
+  }
+
+  /**
+   * Count a request answered with 304 Not Modified.
+   *
+   * @param endpoint the endpoint
+   */
+  void notModified(final String endpoint) {
+    notModified.get(endpoint).incrementAndGet();
+  }
+
+  /**
+   * Write all metrics.
+   *
+   * @param out where to write the metrics to
+   * @param registry the registry to add the phase times, cache counters and index size of
+   * @param renderedResults the rendered results to add the hit ratio of
+   * @param searches the searches to add the counters of
+   * @throws IOException
+   */
+  void write(
+      final Appendable out,
+      final Registry registry,
+      final RenderedResults renderedResults,
+      final AsyncSearches searches) throws IOException {
+    summary(out, "indexgl_request_duration_seconds", "Time spent handling requests.", "endpoint", requestTimes);
+    summary(out, "indexgl_serialization_duration_seconds", "Time spent creating response bodies.", "endpoint",
+        serializationTimes);
+    summary(out, "indexgl_registry_duration_seconds", "Time spent in the phases of a registry search.", "phase",
+        registry.getPhaseTimes());
+
+    header(out, "indexgl_not_modified_total", "Requests answered with 304 Not Modified.", "counter");
+    for (Map.Entry<String, AtomicLong> entry : notModified.entrySet()) {
+      sample(out, "indexgl_not_modified_total", "endpoint", entry.getKey(), entry.getValue().get());
+    }
+
+    header(out, "indexgl_searches_total", "Searches by the way they ended.", "counter");
+    sample(out, "indexgl_searches_total", "result", "completed", searches.getCompleted());
+    sample(out, "indexgl_searches_total", "result", "superseded", searches.getSuperseded());
+    sample(out, "indexgl_searches_total", "result", "disconnected", searches.getDisconnected());
+    sample(out, "indexgl_searches_total", "result", "rejected", searches.getRejected());
+
+    long hits = registry.getTypeaheadCacheHits();
+    long narrowed = registry.getTypeaheadCacheNarrowed();
+    long misses = registry.getTypeaheadCacheMisses();
+    header(out, "indexgl_typeahead_cache_requests_total", "Typeahead cache lookups by result.", "counter");
+    sample(out, "indexgl_typeahead_cache_requests_total", "result", "hit", hits);
+    sample(out, "indexgl_typeahead_cache_requests_total", "result", "narrowed", narrowed);
+    sample(out, "indexgl_typeahead_cache_requests_total", "result", "miss", misses);
+    header(out, "indexgl_typeahead_cache_hit_ratio",
+        "Share of typeahead lookups answered without searching all identifiers.", "gauge");
+    sample(out, "indexgl_typeahead_cache_hit_ratio", null, null, ratio(hits + narrowed, misses));
+
+    header(out, "indexgl_rendered_results_hit_ratio",
+        "Share of gl and gl-table responses that were already rendered.", "gauge");
+    sample(out, "indexgl_rendered_results_hit_ratio", null, null,
+        ratio(renderedResults.getHits(), renderedResults.getRendered()));
+
+    header(out, "indexgl_index_size_bytes", "Size of the search index.", "gauge");
+    sample(out, "indexgl_index_size_bytes", null, null, registry.indexSizeInBytes());
+    header(out, "indexgl_identifiers", "Number of identifiers in the registry.", "gauge");
+    sample(out, "indexgl_identifiers", null, null, registry.getOrdinalCount());
+    header(out, "indexgl_extensions", "Number of extensions in the registry.", "gauge");
+    sample(out, "indexgl_extensions", null, null, registry.getExtensionCount());
+  }
+
+  private static void summary(
+      final Appendable out,
+      final String name,
+      final String help,
+      final String label,
+      final Map<String, LatencyHistogram> histograms) throws IOException {
+    Map<String, LatencyHistogram.Snapshot> snapshots = new LinkedHashMap<String, LatencyHistogram.Snapshot>();
+    for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+      snapshots.put(entry.getKey(), entry.getValue().snapshot());
+    }
+
+    header(out, name, help, "summary");
+    for (Map.Entry<String, LatencyHistogram.Snapshot> entry : snapshots.entrySet()) {
+      LatencyHistogram.Snapshot snapshot = entry.getValue();
+      String labels = label + "=\"" + entry.getKey() + "\"";
+      for (double quantile : QUANTILES) {
+        out.append(name).append('{').append(labels).append(",quantile=\"").append(String.valueOf(quantile))
+            .append("\"} ").append(seconds(snapshot.getValueAtPercentile(quantile * 100))).append('\n');
+      }
+      out.append(name).append("_sum{").append(labels).append("} ").append(seconds(snapshot.getSum())).append('\n');
+      out.append(name).append("_count{").append(labels).append("} ").append(String.valueOf(snapshot.getCount()))
+          .append('\n');
+    }
+
+    String max = name.substring(0, name.length() - "_seconds".length()) + "_max_seconds";
+    header(out, max, "Longest duration recorded in " + name + ".", "gauge");
+    for (Map.Entry<String, LatencyHistogram.Snapshot> entry : snapshots.entrySet()) {
+      out.append(max).append('{').append(label).append("=\"").append(entry.getKey()).append("\"} ")
+          .append(seconds(entry.getValue().getMax())).append('\n');
+    }
+  }
+
+  private static void header(final Appendable out, final String name, final String help, final String type)
+      throws IOException {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void sample(
+      final Appendable out,
+      final String name,
+      final String label,
+      final String labelValue,
+      final Number value) throws IOException {
+    out.append(name);
+    if (label != null) {
+      out.append('{').append(label).append("=\"").append(labelValue).append("\"}");
+    }
+    out.append(' ').append(String.valueOf(value)).append('\n');
+  }
+
+  private static String seconds(final long nanos) {
+    return String.valueOf(nanos / 1e9);
+  }
+
+  private static double ratio(final long hits, final long misses) {
+    long total = hits + misses;
+    return total == 0 ? 0 : (double) hits / total;
+  }
+}
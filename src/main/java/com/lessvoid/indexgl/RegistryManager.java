@@ -0,0 +1,83 @@
+package com.lessvoid.indexgl;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.lucene.search.ReferenceManager;
+
+import com.lessvoid.indexgl.registry.Registry;
+
+/**
+ * Keeps the registry currently served and swaps in a new one when the gl.xml file changes. Like a Lucene
+ * SearcherManager every request acquire()s the current registry and release()s it when done. maybeRefresh() builds
+ * the new registry while the current one keeps serving requests and then publishes it atomically. The replaced
+ * registry is closed as soon as the last request using it has released it.
+ *
+ * @author void
+ */
+class RegistryManager extends ReferenceManager<RegistryManager.Served> {
+  private final File registryFile;
+  private final File snapshotDirectory;
+  private long lastModified;
+
+  /**
+   * Create a new RegistryManager.
+   *
+   * @param registry the registry to serve first
+   * @param registryFile the gl.xml to reload the registry from or null to never reload
+   * @param snapshotDirectory the directory to keep snapshots in or null to never use snapshots
+   */
+  RegistryManager(final Registry registry, final File registryFile, final File snapshotDirectory) {
+    this.current = new Served(registry);
+    this.registryFile = registryFile;
+    this.snapshotDirectory = snapshotDirectory;
+    this.lastModified = registryFile == null ? 0 : registryFile.lastModified();
+  }
+
+  @Override
+  protected Served refreshIfNeeded(final Served referenceToRefresh) throws IOException {
+    if (registryFile == null || registryFile.lastModified() == lastModified) {
+      return null;
+    }
+    // taken before reading the file so that a change while we read is picked up by the next refresh
+    lastModified = registryFile.lastModified();
+    long now = System.nanoTime();
+    Registry registry;
+    try {
+      registry = Registry.openIfChanged(referenceToRefresh.registry, registryFile, snapshotDirectory);
+    } catch (IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+    if (registry == null) {
+      return null;
+    }
+    System.out.println("Registry reloaded from " + registryFile + " in: " + (System.nanoTime() - now)/1000000000f + "sec");
+    return new Served(registry);
+  }
+
+  @Override
+  protected boolean tryIncRef(final Served reference) {
+    return reference.registry.tryIncRef();
+  }
+
+  @Override
+  protected void decRef(final Served reference) throws IOException {
+    reference.registry.decRef();
+  }
+
+  /**
+   * A registry and its rendered results. Both are always swapped together since the ordinals of different
+   * registries don't match.
+   */
+  static class Served {
+    final Registry registry;
+    final RenderedResults renderedResults;
+
+    Served(final Registry registry) {
+      this.registry = registry;
+      this.renderedResults = new RenderedResults(registry);
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.lessvoid.indexgl;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.ws.rs.core.EntityTag;
+
+import com.lessvoid.indexgl.registry.Registry;
+import com.lessvoid.indexgl.registry.ResultJson;
+
+/**
+ * The gl/{identifier} and gl-table/{identifier} responses rendered to UTF-8 bytes. An identifier is rendered the
+ * first time it is requested and the bytes are kept for the life of the registry since the answer never changes.
+ * The ETags are derived from the registry checksum so they stay the same across restarts (and servers) as long as
+ * the gl.xml and the response format stay the same.
+ *
+ * @author void
+ */
+class RenderedResults {
+  /**
+   * Increase this when the rendered JSON or HTML changes so that clients don't keep the old responses.
+   */
+  private static final int RESPONSE_FORMAT_VERSION = 2;
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private final Registry registry;
+  private final EntityTag jsonTag;
+  private final EntityTag tableTag;
+  private final AtomicReferenceArray<byte[]> json;
+  private final AtomicReferenceArray<byte[]> table;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong rendered = new AtomicLong();
+
+  RenderedResults(final Registry registry) {
+    this.registry = registry;
+    this.jsonTag = new EntityTag(registry.getChecksum() + "-" + RESPONSE_FORMAT_VERSION + "-json");
+    this.tableTag = new EntityTag(registry.getChecksum() + "-" + RESPONSE_FORMAT_VERSION + "-table");
+    this.json = new AtomicReferenceArray<byte[]>(registry.getOrdinalCount());
+    this.table = new AtomicReferenceArray<byte[]>(registry.getOrdinalCount());
+  }
+
+  /**
+   * @return the ETag of all gl/{identifier} responses
+   */
+  EntityTag getJsonTag() {
+    return jsonTag;
+  }
+
+  /**
+   * @return the ETag of all gl-table/{identifier} responses
+   */
+  EntityTag getTableTag() {
+    return tableTag;
+  }
+
+  /**
+   * @param ordinal the ordinal of the identifier
+   * @return the GLResult as JSON
+   */
+  byte[] json(final int ordinal) {
+    byte[] result = json.get(ordinal);
+    if (result == null) {
+      // two threads might render the same identifier at the same time but both results are equal
+      result = ResultJson.toBytes(registry.getGLInfo(ordinal));
+      json.set(ordinal, result);
+      rendered.incrementAndGet();
+    } else {
+      hits.incrementAndGet();
+    }
+    return result;
+  }
+
+  /**
+   * @param ordinal the ordinal of the identifier
+   * @return the GLResult as HTML table
+   */
+  byte[] table(final int ordinal) {
+    byte[] result = table.get(ordinal);
+    if (result == null) {
+      result = registry.getGLInfo(ordinal).generateTable().getBytes(UTF8);
+      table.set(ordinal, result);
+      rendered.incrementAndGet();
+    } else {
+      hits.incrementAndGet();
+    }
+    return result;
+  }
+
+  /**
+   * @return the number of responses that were already rendered
+   */
+  long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * @return the number of responses rendered
+   */
+  long getRendered() {
+    return rendered.get();
+  }
+}
@@ -0,0 +1,281 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.AtomicReader;
+
+import com.lessvoid.indexgl.registry.Registry.GLResult.Availability;
+import com.lessvoid.indexgl.registry.Registry.GLResult.Combined;
+import com.lessvoid.indexgl.registry.Registry.GLResult.ExtensionAvailability;
+
+/**
+ * The immutable graph of the alias and vecequiv links between commands over the ordinals of the ExtensionTable.
+ * Aliases are the same command under another name (glActiveTextureARB is glActiveTexture) so they are kept as
+ * closures: every command that has aliases belongs to exactly one alias group and all members of a group are a
+ * single range of the members array. Vecequiv links (glColor3f and glColor3fv) only relate two commands, they are
+ * kept as adjacency lists in both directions. Links to commands that are neither part of a feature nor of an
+ * extension are dropped.
+ *
+ * @author void
+ */
+class AliasGraph {
+  private static final int NONE = -1;
+
+  private final CompatibilityMatrix matrix;
+  private final ExtensionTable extensions;
+
+  /**
+   * The alias group of every identifier (NONE for identifiers without aliases). The members of group g are
+   * members[groupOffsets[g]] until members[groupOffsets[g+1]] in ordinal order.
+   */
+  private final int[] groups;
+  private final int[] groupOffsets;
+  private final int[] members;
+
+  /**
+   * The vector equivalents of identifier i are vecequivs[vecequivOffsets[i]] until vecequivs[vecequivOffsets[i+1]].
+   */
+  private final int[] vecequivOffsets;
+  private final int[] vecequivs;
+
+  private AliasGraph(
+      final CompatibilityMatrix matrix,
+      final ExtensionTable extensions,
+      final int[] groups,
+      final int[] groupOffsets,
+      final int[] members,
+      final int[] vecequivOffsets,
+      final int[] vecequivs) {
+    this.matrix = matrix;
+    this.extensions = extensions;
+    this.groups = groups;
+    this.groupOffsets = groupOffsets;
+    this.members = members;
+    this.vecequivOffsets = vecequivOffsets;
+    this.vecequivs = vecequivs;
+  }
+
+  /**
+   * Build the graph from the alias and vecequiv fields of the signature documents.
+   *
+   * @param reader the reader to read the documents from
+   * @param matrix the matrix of the identifiers
+   * @param extensions the extension table with the ordinals of the identifiers only defined by extensions
+   * @return the new AliasGraph
+   * @throws IOException
+   */
+  static AliasGraph build(
+      final AtomicReader reader,
+      final CompatibilityMatrix matrix,
+      final ExtensionTable extensions) throws IOException {
+    int identifierCount = extensions.identifierCount();
+    // union-find over the alias links
+    int[] parents = new int[identifierCount];
+    for (int ordinal = 0; ordinal < identifierCount; ordinal++) {
+      parents[ordinal] = ordinal;
+    }
+    boolean[] aliased = new boolean[identifierCount];
+    List<int[]> vecequivLinks = new ArrayList<int[]>();
+
+    for (int doc = matrix.size(); doc < reader.maxDoc(); doc++) {
+      Document document = reader.document(doc);
+      String name = document.get("signature");
+      if (name == null) {
+        continue;
+      }
+      int ordinal = ordinal(name, matrix, extensions);
+      if (ordinal == NONE) {
+        continue;
+      }
+      for (String alias : document.getValues("alias")) {
+        int other = ordinal(alias, matrix, extensions);
+        if (other != NONE && other != ordinal) {
+          parents[root(parents, ordinal)] = root(parents, other);
+          aliased[ordinal] = true;
+          aliased[other] = true;
+        }
+      }
+      for (String vecequiv : document.getValues("vecequiv")) {
+        int other = ordinal(vecequiv, matrix, extensions);
+        if (other != NONE && other != ordinal) {
+          vecequivLinks.add(new int[] { ordinal, other });
+        }
+      }
+    }
+
+    // groups are numbered in the order of their first member, members are walked in ordinal order
+    int[] groups = new int[identifierCount];
+    int[] rootGroups = new int[identifierCount];
+    Arrays.fill(groups, NONE);
+    Arrays.fill(rootGroups, NONE);
+    int groupCount = 0;
+    int[] groupSizes = new int[identifierCount + 1];
+    for (int ordinal = 0; ordinal < identifierCount; ordinal++) {
+      if (!aliased[ordinal]) {
+        continue;
+      }
+      int root = root(parents, ordinal);
+      if (rootGroups[root] == NONE) {
+        rootGroups[root] = groupCount++;
+      }
+      groups[ordinal] = rootGroups[root];
+      groupSizes[groups[ordinal] + 1]++;
+    }
+    int[] groupOffsets = new int[groupCount + 1];
+    for (int g = 0; g < groupCount; g++) {
+      groupOffsets[g + 1] = groupOffsets[g] + groupSizes[g + 1];
+    }
+    int[] members = new int[groupOffsets[groupCount]];
+    int[] next = Arrays.copyOf(groupOffsets, groupCount);
+    for (int ordinal = 0; ordinal < identifierCount; ordinal++) {
+      if (groups[ordinal] != NONE) {
+        members[next[groups[ordinal]]++] = ordinal;
+      }
+    }
+
+    // every link in both directions, each adjacency list sorted and without duplicates
+    int[] vecequivOffsets = new int[identifierCount + 1];
+    for (int[] link : vecequivLinks) {
+      vecequivOffsets[link[0] + 1]++;
+      vecequivOffsets[link[1] + 1]++;
+    }
+    for (int ordinal = 0; ordinal < identifierCount; ordinal++) {
+      vecequivOffsets[ordinal + 1] += vecequivOffsets[ordinal];
+    }
+    int[] vecequivs = new int[vecequivOffsets[identifierCount]];
+    next = Arrays.copyOf(vecequivOffsets, identifierCount);
+    for (int[] link : vecequivLinks) {
+      vecequivs[next[link[0]]++] = link[1];
+      vecequivs[next[link[1]]++] = link[0];
+    }
+    int count = 0;
+    int[] uniqueOffsets = new int[identifierCount + 1];
+    for (int ordinal = 0; ordinal < identifierCount; ordinal++) {
+      Arrays.sort(vecequivs, vecequivOffsets[ordinal], vecequivOffsets[ordinal + 1]);
+      for (int i = vecequivOffsets[ordinal]; i < vecequivOffsets[ordinal + 1]; i++) {
+        if (i == vecequivOffsets[ordinal] || vecequivs[i] != vecequivs[i - 1]) {
+          vecequivs[count++] = vecequivs[i];
+        }
+      }
+      uniqueOffsets[ordinal + 1] = count;
+    }
+
+    return new AliasGraph(
+        matrix,
+        extensions,
+        groups,
+        groupOffsets,
+        members,
+        uniqueOffsets,
+        Arrays.copyOf(vecequivs, count));
+  }
+
+  /**
+   * @param ordinal the identifier ordinal
+   * @return the names of all other members of the alias group of the identifier in registry order or null if the
+   * identifier has no aliases
+   */
+  List<String> aliases(final int ordinal) {
+    if (ordinal >= groups.length || groups[ordinal] == NONE) {
+      return null;
+    }
+    int group = groups[ordinal];
+    List<String> result = new ArrayList<String>(groupOffsets[group + 1] - groupOffsets[group] - 1);
+    for (int i = groupOffsets[group]; i < groupOffsets[group + 1]; i++) {
+      if (members[i] != ordinal) {
+        result.add(extensions.identifierName(members[i]));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param ordinal the identifier ordinal
+   * @return the names of the vector equivalents of the identifier or null if there are none
+   */
+  List<String> vecequivs(final int ordinal) {
+    if (ordinal >= vecequivOffsets.length - 1 || vecequivOffsets[ordinal] == vecequivOffsets[ordinal + 1]) {
+      return null;
+    }
+    List<String> result = new ArrayList<String>(vecequivOffsets[ordinal + 1] - vecequivOffsets[ordinal]);
+    for (int i = vecequivOffsets[ordinal]; i < vecequivOffsets[ordinal + 1]; i++) {
+      result.add(extensions.identifierName(vecequivs[i]));
+    }
+    return result;
+  }
+
+  /**
+   * Combine the availability of all members of the alias group in a single pass over the members: for every
+   * result row the first version any of them is supported in and all extensions providing any of them.
+   *
+   * @param ordinal the identifier ordinal
+   * @return the combined availability or null if the identifier has no aliases
+   */
+  Combined combined(final int ordinal) {
+    if (ordinal >= groups.length || groups[ordinal] == NONE) {
+      return null;
+    }
+    int rows = matrix.rowCount();
+    int[] firstColumns = new int[rows];
+    int[] firstMembers = new int[rows];
+    Arrays.fill(firstColumns, Integer.MAX_VALUE);
+    List<ExtensionAvailability> extensionAvailability = new ArrayList<ExtensionAvailability>();
+
+    int group = groups[ordinal];
+    for (int i = groupOffsets[group]; i < groupOffsets[group + 1]; i++) {
+      int member = members[i];
+      if (member < matrix.size() && matrix.name(member) != null) {
+        for (int row = 0; row < rows; row++) {
+          long supported = matrix.rowSupported(member, row);
+          int column = supported == 0 ? Integer.MAX_VALUE : Long.numberOfTrailingZeros(supported);
+          // the identifier itself wins a tie
+          if (column < firstColumns[row] || (column == firstColumns[row] && member == ordinal)) {
+            firstColumns[row] = column;
+            firstMembers[row] = member;
+          }
+        }
+      }
+      for (String extension : extensions.extensionNames(member)) {
+        extensionAvailability.add(new ExtensionAvailability(extension, extensions.identifierName(member)));
+      }
+    }
+
+    List<Availability> versions = new ArrayList<Availability>();
+    for (int row = 0; row < rows; row++) {
+      if (firstColumns[row] != Integer.MAX_VALUE) {
+        versions.add(new Availability(
+            matrix.row(row),
+            matrix.getVersions().get(firstColumns[row]),
+            extensions.identifierName(firstMembers[row])));
+      }
+    }
+    return new Combined(versions, extensionAvailability);
+  }
+
+  private static int ordinal(final String name, final CompatibilityMatrix matrix, final ExtensionTable extensions) {
+    int ordinal = matrix.ordinal(name);
+    if (ordinal == -1) {
+      ordinal = extensions.extensionIdentifier(name);
+    }
+    return ordinal == -1 ? NONE : ordinal;
+  }
+
+  private static int root(final int[] parents, final int ordinal) {
+    int root = ordinal;
+    while (parents[root] != root) {
+      root = parents[root];
+    }
+    // path compression
+    int current = ordinal;
+    while (parents[current] != root) {
+      int parent = parents[current];
+      parents[current] = root;
+      current = parent;
+    }
+    return root;
+  }
+}
@@ -27,4 +27,33 @@ public class AnalyzerUtils {
 
     return result;
   }
+
+  /**
+   * Find the positions in the identifier a word part starts at. A new word part starts after a '_', at an upper
+   * case character following a lower case one and where letters change to digits or the other way around. So
+   * "glColor3fv" consists of "gl", "Color", "3" and "fv".
+   *
+   * @param name the identifier
+   * @return the start positions
+   */
+  public static List<Integer> wordPartStarts(final CharSequence name) {
+    List<Integer> result = new ArrayList<Integer>();
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (c == '_') {
+        continue;
+      }
+      if (i == 0) {
+        result.add(i);
+        continue;
+      }
+      char previous = name.charAt(i - 1);
+      if (previous == '_' ||
+          (Character.isUpperCase(c) && Character.isLowerCase(previous)) ||
+          (Character.isDigit(c) != Character.isDigit(previous))) {
+        result.add(i);
+      }
+    }
+    return result;
+  }
 }
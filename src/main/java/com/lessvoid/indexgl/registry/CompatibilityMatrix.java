@@ -0,0 +1,476 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.BytesRef;
+
+import com.lessvoid.indexgl.registry.Registry.GLResult;
+import com.lessvoid.indexgl.registry.Registry.GLResult.ApiWithSupportedVersions;
+
+/**
+ * The CompatibilityMatrix is an immutable identifier to support table that is computed once from the index. Every
+ * identifier gets an ordinal (the order of its first appearance in the registry) and for every profile two bitsets
+ * over the version columns: one telling if the profile knows about the identifier in that version at all and one
+ * telling if it is actually supported. Registries of other apis than GL (EGL, GLX, WGL) get a profile and a result
+ * row for every api their features name.
+ *
+ * @author void
+ */
+class CompatibilityMatrix {
+  /**
+   * Maximum number of version columns we can store in a single long.
+   */
+  private static final int MAX_COLUMNS = 64;
+
+  private static final String AVAILABLE_NOT = " ";
+  private static final String SUPPORTED = "Y";
+  private static final String NOT_SUPPORTED = "N";
+
+  /**
+   * The profiles we keep a bitset for.
+   */
+  static enum Profile {
+    Compatibility,
+    Core,
+    ES1,
+    ES2;
+  }
+
+  private static final int PROFILES = Profile.values().length;
+
+  /**
+   * The labels of the GL rows of a GLResult. The first two rows are the Compatibility and Core profiles, the last row
+   * combines both ES profiles.
+   */
+  private static final String[] GL_ROWS = { "OpenGL", "OpenGL Core Profile", "OpenGL ES" };
+  private static final int[][] GL_ROW_PROFILES = {
+      { Profile.Compatibility.ordinal() },
+      { Profile.Core.ordinal() },
+      { Profile.ES1.ordinal(), Profile.ES2.ordinal() } };
+
+  /**
+   * The labels of the result rows and the profiles every row combines.
+   */
+  private final String[] rows;
+  private final int[][] rowProfiles;
+
+  /**
+   * The number of profiles: the GL profiles followed by one for every other api.
+   */
+  private final int profiles;
+
+  /**
+   * The version columns.
+   */
+  private final List<String> versions;
+
+  /**
+   * The identifier names by ordinal.
+   */
+  private final String[] names;
+
+  /**
+   * Lowercase identifier name to ordinal.
+   */
+  private final Map<String, Integer> ordinals;
+
+  /**
+   * The bitsets, one entry per profile and ordinal. A bit in available without the same bit in supported means "N".
+   */
+  private final long[] available;
+  private final long[] supported;
+
+  private CompatibilityMatrix(
+      final String[] rows,
+      final int[][] rowProfiles,
+      final int profiles,
+      final List<String> versions,
+      final String[] names,
+      final Map<String, Integer> ordinals,
+      final long[] available,
+      final long[] supported) {
+    this.rows = rows;
+    this.rowProfiles = rowProfiles;
+    this.profiles = profiles;
+    this.versions = versions;
+    this.names = names;
+    this.ordinals = ordinals;
+    this.available = available;
+    this.supported = supported;
+  }
+
+  /**
+   * Build the matrix by walking all documents of the given reader once.
+   *
+   * @param reader the reader to read the documents from
+   * @param glVersions all GL versions (these are the columns)
+   * @param glCoreVersions the GL versions that have a core profile
+   * @param glES1Versions the GL ES 1.x versions
+   * @param glES2Versions the GL ES 2.x and later versions
+   * @param otherApiNumbers the api:number of the features of all other apis (e.g. egl:1.0)
+   * @return the new CompatibilityMatrix
+   * @throws IOException
+   */
+  static CompatibilityMatrix build(
+      final AtomicReader reader,
+      final Set<String> glVersions,
+      final Set<String> glCoreVersions,
+      final Set<String> glES1Versions,
+      final Set<String> glES2Versions,
+      final Set<String> otherApiNumbers) throws IOException {
+    Map<String, Set<String>> otherApis = new TreeMap<String, Set<String>>();
+    Set<String> columns = new TreeSet<String>(glVersions);
+    for (String apiNumber : otherApiNumbers) {
+      int separator = apiNumber.indexOf(':');
+      String api = apiNumber.substring(0, separator);
+      Set<String> apiVersions = otherApis.get(api);
+      if (apiVersions == null) {
+        apiVersions = new TreeSet<String>();
+        otherApis.put(api, apiVersions);
+      }
+      apiVersions.add(apiNumber.substring(separator + 1));
+      columns.add(apiNumber.substring(separator + 1));
+    }
+    if (columns.size() > MAX_COLUMNS) {
+      throw new IllegalStateException("Too many versions (" + columns.size() + ")");
+    }
+    List<String> versions = Collections.unmodifiableList(new ArrayList<String>(columns));
+    List<String> apis = new ArrayList<String>(otherApis.keySet());
+    int profiles = PROFILES + apis.size();
+
+    // the GL rows unless the registry only knows about other apis, then a row for every other api
+    List<String> rows = new ArrayList<String>();
+    List<int[]> rowProfiles = new ArrayList<int[]>();
+    if (!glVersions.isEmpty() || apis.isEmpty()) {
+      rows.addAll(Arrays.asList(GL_ROWS));
+      rowProfiles.addAll(Arrays.asList(GL_ROW_PROFILES));
+    }
+    for (int i = 0; i < apis.size(); i++) {
+      rows.add(apis.get(i).toUpperCase());
+      rowProfiles.add(new int[] { PROFILES + i });
+    }
+
+    // the column indices in the order we walk them for every profile
+    int[][] profileColumns = new int[profiles][];
+    profileColumns[Profile.Compatibility.ordinal()] = columns(versions, glVersions);
+    profileColumns[Profile.Core.ordinal()] = columns(versions, glVersions);
+    profileColumns[Profile.ES1.ordinal()] = columns(versions, glES1Versions);
+    profileColumns[Profile.ES2.ordinal()] = columns(versions, glES2Versions);
+
+    long[] profileMasks = new long[profiles];
+    profileMasks[Profile.Compatibility.ordinal()] = mask(versions, glVersions);
+    profileMasks[Profile.Core.ordinal()] = mask(versions, glCoreVersions);
+    profileMasks[Profile.ES1.ordinal()] = mask(versions, glES1Versions);
+    profileMasks[Profile.ES2.ordinal()] = mask(versions, glES2Versions);
+    for (int i = 0; i < apis.size(); i++) {
+      profileColumns[PROFILES + i] = columns(versions, otherApis.get(apis.get(i)));
+      profileMasks[PROFILES + i] = mask(versions, otherApis.get(apis.get(i)));
+    }
+
+    Map<String, Integer> ordinals = new HashMap<String, Integer>();
+    List<Entry> entries = new ArrayList<Entry>();
+
+    // there is a single document for every identifier in registry order so the document is the ordinal
+    SortedSetDocValues required = reader.getSortedSetDocValues("required");
+    SortedSetDocValues removed = reader.getSortedSetDocValues("removed");
+    BytesRef scratch = new BytesRef();
+    for (int i = 0; i < reader.maxDoc(); i++) {
+      String name = reader.document(i).get("name");
+      if (name == null) {
+        // the extension documents follow the identifiers
+        break;
+      }
+      Entry entry = new Entry(name, profiles, versions.size(), apis);
+      ordinals.put(name.toLowerCase(), i);
+      entries.add(entry);
+
+      // all required features first since removing only counts for profiles the identifier is defined for
+      addFeatures(required, i, scratch, entry, false, versions);
+      addFeatures(removed, i, scratch, entry, true, versions);
+    }
+
+    String[] names = new String[entries.size()];
+    long[] available = new long[entries.size() * profiles];
+    long[] supported = new long[entries.size() * profiles];
+    for (int ordinal = 0; ordinal < entries.size(); ordinal++) {
+      Entry entry = entries.get(ordinal);
+      names[ordinal] = entry.required ? entry.name : null;
+      for (int profile = 0; profile < profiles; profile++) {
+        if (!entry.defined[profile]) {
+          continue;
+        }
+        int index = ordinal * profiles + profile;
+        available[index] = profileMasks[profile];
+        int count = 0;
+        for (int column : profileColumns[profile]) {
+          count += entry.delta[profile][column];
+          if (count >= 1) {
+            supported[index] |= 1L << column;
+          }
+        }
+        supported[index] &= available[index];
+      }
+    }
+    return new CompatibilityMatrix(
+        rows.toArray(new String[rows.size()]),
+        rowProfiles.toArray(new int[rowProfiles.size()][]),
+        profiles,
+        versions,
+        names,
+        ordinals,
+        available,
+        supported);
+  }
+
+  /**
+   * Find the ordinal of the given identifier. The lookup is case insensitive.
+   *
+   * @param gl the identifier
+   * @return the ordinal or -1 when the identifier is not required by any feature
+   */
+  int ordinal(final String gl) {
+    Integer ordinal = ordinals.get(gl.toLowerCase());
+    if (ordinal == null || names[ordinal] == null) {
+      return -1;
+    }
+    return ordinal;
+  }
+
+  /**
+   * @return the number of ordinals
+   */
+  int size() {
+    return names.length;
+  }
+
+  /**
+   * @param ordinal the ordinal
+   * @return the identifier name for the ordinal
+   */
+  String name(final int ordinal) {
+    return names[ordinal];
+  }
+
+  /**
+   * @return the number of result rows
+   */
+  int rowCount() {
+    return rows.length;
+  }
+
+  /**
+   * @param row the result row
+   * @return the label of the result row
+   */
+  String row(final int row) {
+    return rows[row];
+  }
+
+  /**
+   * @return the version columns
+   */
+  List<String> getVersions() {
+    return versions;
+  }
+
+  /**
+   * @param ordinal the ordinal
+   * @param profile the profile
+   * @return the bitset of the columns the profile knows about
+   */
+  long available(final int ordinal, final Profile profile) {
+    return available[ordinal * profiles + profile.ordinal()];
+  }
+
+  /**
+   * @param ordinal the ordinal
+   * @param profile the profile
+   * @return the bitset of the columns the profile supports the identifier in
+   */
+  long supported(final int ordinal, final Profile profile) {
+    return supported[ordinal * profiles + profile.ordinal()];
+  }
+
+  /**
+   * Create the GLResult for the given ordinal.
+   *
+   * @param ordinal the ordinal
+   * @param extensions the extensions providing the identifier
+   * @return the GLResult
+   */
+  GLResult result(final int ordinal, final List<String> extensions) {
+    long[] rowAvailable = new long[rows.length];
+    long[] rowSupported = new long[rows.length];
+    for (int row = 0; row < rows.length; row++) {
+      rowAvailable[row] = rowAvailable(ordinal, row);
+      rowSupported[row] = rowSupported(ordinal, row);
+    }
+    return result(names[ordinal], extensions, rowAvailable, rowSupported);
+  }
+
+  /**
+   * Create a GLResult from the bitsets of the result rows.
+   *
+   * @param name the name of the result
+   * @param extensions the extensions of the result (might be null)
+   * @param rowAvailable the columns every row knows about
+   * @param rowSupported the columns every row supports
+   * @return the GLResult
+   */
+  GLResult result(
+      final String name,
+      final List<String> extensions,
+      final long[] rowAvailable,
+      final long[] rowSupported) {
+    ApiWithSupportedVersions[] apis = new ApiWithSupportedVersions[rows.length];
+    for (int row = 0; row < rows.length; row++) {
+      apis[row] = new ApiWithSupportedVersions(rows[row], supported(rowAvailable[row], rowSupported[row]));
+    }
+    return new GLResult(name, versions, extensions, apis);
+  }
+
+  /**
+   * @param ordinal the ordinal
+   * @param row the result row
+   * @return the bitset of the columns the result row knows about
+   */
+  long rowAvailable(final int ordinal, final int row) {
+    long result = 0;
+    for (int profile : rowProfiles[row]) {
+      result |= available[ordinal * profiles + profile];
+    }
+    return result;
+  }
+
+  /**
+   * @param ordinal the ordinal
+   * @param row the result row
+   * @return the bitset of the columns the result row supports the identifier in
+   */
+  long rowSupported(final int ordinal, final int row) {
+    long result = 0;
+    for (int profile : rowProfiles[row]) {
+      result |= supported[ordinal * profiles + profile];
+    }
+    return result;
+  }
+
+  private List<String> supported(final long available, final long supported) {
+    String[] result = new String[versions.size()];
+    for (int column = 0; column < result.length; column++) {
+      long bit = 1L << column;
+      if ((available & bit) == 0) {
+        result[column] = AVAILABLE_NOT;
+      } else if ((supported & bit) == 0) {
+        result[column] = NOT_SUPPORTED;
+      } else {
+        result[column] = SUPPORTED;
+      }
+    }
+    return Arrays.asList(result);
+  }
+
+  private static void addFeatures(
+      final SortedSetDocValues features,
+      final int doc,
+      final BytesRef scratch,
+      final Entry entry,
+      final boolean removed,
+      final List<String> versions) {
+    if (features == null) {
+      return;
+    }
+    features.setDocument(doc);
+    long ord;
+    while ((ord = features.nextOrd()) != SortedSetDocValues.NO_MORE_ORDS) {
+      features.lookupOrd(ord, scratch);
+      String apiNumber = scratch.utf8ToString();
+      int separator = apiNumber.indexOf(':');
+      entry.add(apiNumber.substring(0, separator), apiNumber.substring(separator + 1), removed, versions);
+    }
+  }
+
+  private static int[] columns(final List<String> versions, final Set<String> profileVersions) {
+    int[] result = new int[profileVersions.size()];
+    int count = 0;
+    for (String version : profileVersions) {
+      int column = versions.indexOf(version);
+      if (column != -1) {
+        result[count++] = column;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  private static long mask(final List<String> versions, final Set<String> profileVersions) {
+    long result = 0;
+    for (int column : columns(versions, profileVersions)) {
+      result |= 1L << column;
+    }
+    return result;
+  }
+
+  /**
+   * Temporary data for a single identifier while the matrix is built. The delta arrays are +1 for a version that
+   * requires the identifier and -1 for a version that removes it, the running sum over the versions of a profile
+   * then tells if the identifier is supported.
+   */
+  private static class Entry {
+    private final String name;
+    private final boolean[] defined;
+    private final int[][] delta;
+    private final List<String> otherApis;
+    private boolean required;
+
+    public Entry(final String name, final int profiles, final int columns, final List<String> otherApis) {
+      this.name = name;
+      this.defined = new boolean[profiles];
+      this.delta = new int[profiles][columns];
+      this.otherApis = otherApis;
+    }
+
+    public void add(final String api, final String number, final boolean removed, final List<String> versions) {
+      required |= !removed;
+
+      int column = versions.indexOf(number);
+      if ("gl".equals(api)) {
+        if (!removed) {
+          add(Profile.Compatibility, column, 1);
+          add(Profile.Core, column, 1);
+        } else {
+          add(Profile.Core, column, -1);
+        }
+      } else if (api.startsWith("gles1")) {
+        add(Profile.ES1, column, removed ? -1 : 1);
+      } else if (api.startsWith("gles2")) {
+        add(Profile.ES2, column, removed ? -1 : 1);
+      } else if (otherApis.contains(api)) {
+        add(PROFILES + otherApis.indexOf(api), column, removed ? -1 : 1);
+      }
+    }
+
+    private void add(final Profile profile, final int column, final int value) {
+      add(profile.ordinal(), column, value);
+    }
+
+    private void add(final int profile, final int column, final int value) {
+      if (value > 0) {
+        defined[profile] = true;
+      }
+      if (column != -1) {
+        delta[profile][column] += value;
+      }
+    }
+  }
+}
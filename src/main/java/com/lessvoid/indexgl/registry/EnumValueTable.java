@@ -0,0 +1,199 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.AtomicReader;
+
+import com.lessvoid.indexgl.registry.Registry.EnumValueResult;
+import com.lessvoid.indexgl.registry.Registry.EnumValueResult.Definition;
+
+/**
+ * The immutable numeric value to enum names multimap. The distinct values are a sorted long array, the enums with
+ * value values[v] are the rows offsets[v] until offsets[v+1] of the name, literal, group and type columns (indices
+ * into a string pool) in registry order. A lookup is a binary search without any boxing. Values are compared as
+ * signed longs so an unsigned 64 bit value like 0xFFFFFFFFFFFFFFFF is the same as -1.
+ *
+ * @author void
+ */
+class EnumValueTable {
+  private static final Pattern NUMBER = Pattern.compile("0[xX][0-9a-fA-F]{1,16}|-?[0-9]{1,18}");
+
+  private final String[] strings;
+  private final long[] values;
+  private final int[] offsets;
+  private final int[] names;
+  private final int[] literals;
+  private final int[] groups;
+  private final int[] types;
+
+  private EnumValueTable(
+      final String[] strings,
+      final long[] values,
+      final int[] offsets,
+      final int[] names,
+      final int[] literals,
+      final int[] groups,
+      final int[] types) {
+    this.strings = strings;
+    this.values = values;
+    this.offsets = offsets;
+    this.names = names;
+    this.literals = literals;
+    this.groups = groups;
+    this.types = types;
+  }
+
+  /**
+   * Build the table from the enums documents which follow the extension documents in the index.
+   *
+   * @param reader the reader to read the documents from
+   * @param matrix the matrix of the identifiers
+   * @return the new EnumValueTable
+   * @throws IOException
+   */
+  static EnumValueTable build(final AtomicReader reader, final CompatibilityMatrix matrix) throws IOException {
+    StringPool pool = new StringPool();
+    List<long[]> entries = new ArrayList<long[]>();
+    for (int doc = matrix.size(); doc < reader.maxDoc(); doc++) {
+      Document document = reader.document(doc);
+      if (document.get("enums") == null) {
+        continue;
+      }
+      int group = pool.add(document.get("enums-group"));
+      String blockType = document.get("enums-type");
+      String[] enumNames = document.getValues("enum-name");
+      String[] enumValues = document.getValues("enum-value");
+      String[] enumTypes = document.getValues("enum-type");
+      for (int i = 0; i < enumNames.length; i++) {
+        if (!isValue(enumValues[i])) {
+          continue;
+        }
+        entries.add(new long[] {
+            parse(enumValues[i]),
+            entries.size(),
+            pool.add(enumNames[i]),
+            pool.add(enumValues[i]),
+            group,
+            pool.add(enumTypes[i].isEmpty() ? blockType : enumTypes[i])});
+      }
+    }
+    // by value and in registry order for the same value
+    Collections.sort(entries, new Comparator<long[]>() {
+      @Override
+      public int compare(final long[] a, final long[] b) {
+        if (a[0] != b[0]) {
+          return a[0] < b[0] ? -1 : 1;
+        }
+        return a[1] < b[1] ? -1 : (a[1] == b[1] ? 0 : 1);
+      }
+    });
+
+    long[] values = new long[entries.size()];
+    int[] offsets = new int[entries.size() + 1];
+    int[] names = new int[entries.size()];
+    int[] literals = new int[entries.size()];
+    int[] groups = new int[entries.size()];
+    int[] types = new int[entries.size()];
+    int count = 0;
+    for (int row = 0; row < entries.size(); row++) {
+      long[] entry = entries.get(row);
+      if (row == 0 || entry[0] != values[count - 1]) {
+        values[count] = entry[0];
+        offsets[count++] = row;
+      }
+      names[row] = (int) entry[2];
+      literals[row] = (int) entry[3];
+      groups[row] = (int) entry[4];
+      types[row] = (int) entry[5];
+    }
+    offsets[count] = entries.size();
+
+    return new EnumValueTable(
+        pool.toArray(),
+        Arrays.copyOf(values, count),
+        Arrays.copyOf(offsets, count + 1),
+        names,
+        literals,
+        groups,
+        types);
+  }
+
+  /**
+   * @param value the string
+   * @return true if the string is a hexadecimal (0x...) or decimal number
+   */
+  static boolean isValue(final String value) {
+    return NUMBER.matcher(value.trim()).matches();
+  }
+
+  /**
+   * Parse a hexadecimal (0x...) or decimal number. Hexadecimal numbers may use all 64 bits.
+   *
+   * @param value the number
+   * @return the value
+   * @throws NumberFormatException if the string is not a number
+   */
+  static long parse(final String value) {
+    String number = value.trim();
+    if (!NUMBER.matcher(number).matches()) {
+      throw new NumberFormatException("not a number: '" + value + "'");
+    }
+    if (number.length() > 2 && (number.charAt(1) == 'x' || number.charAt(1) == 'X')) {
+      long result = 0;
+      for (int i = 2; i < number.length(); i++) {
+        result = result << 4 | Character.digit(number.charAt(i), 16);
+      }
+      return result;
+    }
+    return Long.parseLong(number);
+  }
+
+  /**
+   * @param value the value
+   * @return the names of all enums with the value in registry order
+   */
+  List<String> names(final long value) {
+    int v = Arrays.binarySearch(values, value);
+    if (v < 0) {
+      return Collections.emptyList();
+    }
+    List<String> result = new ArrayList<String>(offsets[v + 1] - offsets[v]);
+    for (int row = offsets[v]; row < offsets[v + 1]; row++) {
+      result.add(strings[names[row]]);
+    }
+    return result;
+  }
+
+  /**
+   * Create the EnumValueResult for the given value.
+   *
+   * @param value the value
+   * @return the EnumValueResult or null if no enum has the value
+   */
+  EnumValueResult result(final long value) {
+    int v = Arrays.binarySearch(values, value);
+    if (v < 0) {
+      return null;
+    }
+    List<Definition> definitions = new ArrayList<Definition>(offsets[v + 1] - offsets[v]);
+    for (int row = offsets[v]; row < offsets[v + 1]; row++) {
+      definitions.add(new Definition(strings[names[row]], string(groups[row]), string(types[row])));
+    }
+    return new EnumValueResult(strings[literals[offsets[v]]], definitions);
+  }
+
+  /**
+   * @return the string or null for a missing (empty) value
+   */
+  private String string(final int index) {
+    String value = strings[index];
+    return value.isEmpty() ? null : value;
+  }
+}
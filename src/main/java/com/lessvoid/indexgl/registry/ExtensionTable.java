@@ -0,0 +1,286 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.AtomicReader;
+
+import com.lessvoid.indexgl.registry.Registry.ExtensionResult;
+
+/**
+ * The immutable identifier to extension incidence table. Identifiers keep the ordinals of the CompatibilityMatrix,
+ * identifiers that are only defined by extensions get the ordinals after those (in the order of their first
+ * appearance). Both directions are stored as sorted int arrays (one offsets array and one values array each) so
+ * all extensions of an identifier and all identifiers of an extension are a single array range.
+ *
+ * @author void
+ */
+class ExtensionTable {
+  private final CompatibilityMatrix matrix;
+
+  /**
+   * The extension names and the APIs they support by extension ordinal.
+   */
+  private final String[] names;
+  private final List<List<String>> supported;
+
+  /**
+   * Lowercase extension name to extension ordinal.
+   */
+  private final Map<String, Integer> ordinals;
+
+  /**
+   * The names of the identifiers only defined by extensions starting with ordinal matrix.size().
+   */
+  private final String[] extensionIdentifiers;
+
+  /**
+   * Lowercase name to ordinal for the identifiers only defined by extensions.
+   */
+  private final Map<String, Integer> extensionIdentifierOrdinals;
+
+  /**
+   * The identifier ordinals that are commands (all others are enums).
+   */
+  private final BitSet commands;
+
+  /**
+   * The identifiers of extension e are identifiers[identifierOffsets[e]] until identifiers[identifierOffsets[e+1]].
+   */
+  private final int[] identifierOffsets;
+  private final int[] identifiers;
+
+  /**
+   * The extensions of identifier i are extensions[extensionOffsets[i]] until extensions[extensionOffsets[i+1]].
+   */
+  private final int[] extensionOffsets;
+  private final int[] extensions;
+
+  private ExtensionTable(
+      final CompatibilityMatrix matrix,
+      final String[] names,
+      final List<List<String>> supported,
+      final Map<String, Integer> ordinals,
+      final String[] extensionIdentifiers,
+      final Map<String, Integer> extensionIdentifierOrdinals,
+      final BitSet commands,
+      final int[] identifierOffsets,
+      final int[] identifiers,
+      final int[] extensionOffsets,
+      final int[] extensions) {
+    this.matrix = matrix;
+    this.names = names;
+    this.supported = supported;
+    this.ordinals = ordinals;
+    this.extensionIdentifiers = extensionIdentifiers;
+    this.extensionIdentifierOrdinals = extensionIdentifierOrdinals;
+    this.commands = commands;
+    this.identifierOffsets = identifierOffsets;
+    this.identifiers = identifiers;
+    this.extensionOffsets = extensionOffsets;
+    this.extensions = extensions;
+  }
+
+  /**
+   * Build the table from the extension documents which follow the identifier documents in the index.
+   *
+   * @param reader the reader to read the documents from
+   * @param matrix the matrix of the identifiers
+   * @return the new ExtensionTable
+   * @throws IOException
+   */
+  static ExtensionTable build(final AtomicReader reader, final CompatibilityMatrix matrix) throws IOException {
+    List<String> names = new ArrayList<String>();
+    List<List<String>> supported = new ArrayList<List<String>>();
+    Map<String, Integer> ordinals = new HashMap<String, Integer>();
+    List<String> extensionIdentifiers = new ArrayList<String>();
+    Map<String, Integer> extensionIdentifierOrdinals = new HashMap<String, Integer>();
+    BitSet commands = new BitSet();
+    List<int[]> extensionMembers = new ArrayList<int[]>();
+
+    for (int doc = matrix.size(); doc < reader.maxDoc(); doc++) {
+      Document document = reader.document(doc);
+      String name = document.get("extension");
+      if (name == null) {
+        continue;
+      }
+      ordinals.put(name.toLowerCase(), names.size());
+      names.add(name);
+      String apis = document.get("supported");
+      supported.add(Collections.unmodifiableList(
+          apis.isEmpty() ? Collections.<String>emptyList() : Arrays.asList(apis.split("\\|"))));
+
+      String[] extensionCommands = document.getValues("command");
+      String[] extensionEnums = document.getValues("enum");
+      int[] members = new int[extensionCommands.length + extensionEnums.length];
+      int count = 0;
+      for (String command : extensionCommands) {
+        int ordinal = identifierOrdinal(command, matrix, extensionIdentifiers, extensionIdentifierOrdinals);
+        commands.set(ordinal);
+        members[count++] = ordinal;
+      }
+      for (String e : extensionEnums) {
+        members[count++] = identifierOrdinal(e, matrix, extensionIdentifiers, extensionIdentifierOrdinals);
+      }
+      Arrays.sort(members);
+      extensionMembers.add(unique(members));
+    }
+
+    int identifierCount = matrix.size() + extensionIdentifiers.size();
+    int[] identifierOffsets = new int[names.size() + 1];
+    int[] extensionCounts = new int[identifierCount + 1];
+    for (int e = 0; e < names.size(); e++) {
+      int[] members = extensionMembers.get(e);
+      identifierOffsets[e + 1] = identifierOffsets[e] + members.length;
+      for (int ordinal : members) {
+        extensionCounts[ordinal + 1]++;
+      }
+    }
+
+    int[] identifiers = new int[identifierOffsets[names.size()]];
+    int[] extensionOffsets = new int[identifierCount + 1];
+    for (int i = 0; i < identifierCount; i++) {
+      extensionOffsets[i + 1] = extensionOffsets[i] + extensionCounts[i + 1];
+    }
+    int[] extensions = new int[identifiers.length];
+    int[] next = Arrays.copyOf(extensionOffsets, identifierCount);
+    for (int e = 0; e < names.size(); e++) {
+      int[] members = extensionMembers.get(e);
+      System.arraycopy(members, 0, identifiers, identifierOffsets[e], members.length);
+      // the extensions are walked in ordinal order so every range ends up sorted
+      for (int ordinal : members) {
+        extensions[next[ordinal]++] = e;
+      }
+    }
+
+    return new ExtensionTable(
+        matrix,
+        names.toArray(new String[names.size()]),
+        supported,
+        ordinals,
+        extensionIdentifiers.toArray(new String[extensionIdentifiers.size()]),
+        extensionIdentifierOrdinals,
+        commands,
+        identifierOffsets,
+        identifiers,
+        extensionOffsets,
+        extensions);
+  }
+
+  /**
+   * @return the number of extensions
+   */
+  int size() {
+    return names.length;
+  }
+
+  /**
+   * @return the number of identifier ordinals (the identifiers of the matrix and those only defined by extensions)
+   */
+  int identifierCount() {
+    return matrix.size() + extensionIdentifiers.length;
+  }
+
+  /**
+   * Find the ordinal of an extension. The lookup is case insensitive.
+   *
+   * @param name the extension name
+   * @return the extension ordinal or -1 if there is no such extension
+   */
+  int extension(final String name) {
+    Integer ordinal = ordinals.get(name.toLowerCase());
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  /**
+   * Find the ordinal of an identifier only defined by extensions. The lookup is case insensitive.
+   *
+   * @param gl the identifier
+   * @return the ordinal or -1 if there is no such identifier
+   */
+  int extensionIdentifier(final String gl) {
+    Integer ordinal = extensionIdentifierOrdinals.get(gl.toLowerCase());
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  /**
+   * @param ordinal the identifier ordinal
+   * @return the names of the extensions providing the identifier in registry order
+   */
+  List<String> extensionNames(final int ordinal) {
+    if (ordinal + 1 >= extensionOffsets.length) {
+      return Collections.emptyList();
+    }
+    List<String> result = new ArrayList<String>(extensionOffsets[ordinal + 1] - extensionOffsets[ordinal]);
+    for (int i = extensionOffsets[ordinal]; i < extensionOffsets[ordinal + 1]; i++) {
+      result.add(names[extensions[i]]);
+    }
+    return result;
+  }
+
+  /**
+   * @param ordinal the identifier ordinal
+   * @return the identifier name
+   */
+  String identifierName(final int ordinal) {
+    if (ordinal < matrix.size()) {
+      return matrix.name(ordinal);
+    }
+    return extensionIdentifiers[ordinal - matrix.size()];
+  }
+
+  /**
+   * Create the ExtensionResult for the given extension.
+   *
+   * @param extension the extension ordinal
+   * @return the ExtensionResult
+   */
+  ExtensionResult result(final int extension) {
+    List<String> extensionCommands = new ArrayList<String>();
+    List<String> extensionEnums = new ArrayList<String>();
+    for (int i = identifierOffsets[extension]; i < identifierOffsets[extension + 1]; i++) {
+      if (commands.get(identifiers[i])) {
+        extensionCommands.add(identifierName(identifiers[i]));
+      } else {
+        extensionEnums.add(identifierName(identifiers[i]));
+      }
+    }
+    return new ExtensionResult(names[extension], supported.get(extension), extensionCommands, extensionEnums);
+  }
+
+  private static int identifierOrdinal(
+      final String name,
+      final CompatibilityMatrix matrix,
+      final List<String> extensionIdentifiers,
+      final Map<String, Integer> extensionIdentifierOrdinals) {
+    int ordinal = matrix.ordinal(name);
+    if (ordinal != -1) {
+      return ordinal;
+    }
+    String key = name.toLowerCase();
+    Integer result = extensionIdentifierOrdinals.get(key);
+    if (result == null) {
+      result = matrix.size() + extensionIdentifiers.size();
+      extensionIdentifiers.add(name);
+      extensionIdentifierOrdinals.put(key, result);
+    }
+    return result;
+  }
+
+  private static int[] unique(final int[] sorted) {
+    int count = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      if (i == 0 || sorted[i] != sorted[i - 1]) {
+        sorted[count++] = sorted[i];
+      }
+    }
+    return Arrays.copyOf(sorted, count);
+  }
+}
@@ -0,0 +1,361 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.lessvoid.indexgl.registry.Registry.GLResult;
+import com.lessvoid.indexgl.registry.Registry.TypeaheadResult;
+
+/**
+ * Searches several Khronos registries (gl.xml, egl.xml, glx.xml, wgl.xml, ...) at once. Every registry keeps its
+ * own index so that each result names the registry it comes from. A search is sent to all registries concurrently:
+ * the first registry is searched on the calling thread, all others on the threads of a pool. The results of all
+ * registries answering within the time budget are merged, the names of the registries that didn't are reported
+ * instead. A registry that was too slow still finishes its search in the background so its typeahead cache is
+ * filled for the next keystroke.
+ *
+ * @author void
+ */
+public class FederatedRegistry {
+  private final String[] names;
+  private final Registry[] registries;
+  private final long budgetNanos;
+  private final ExecutorService executor;
+
+  /**
+   * Create a new FederatedRegistry.
+   *
+   * @param registries the registries by name in the order their results are preferred in
+   * @param budgetMillis the time a search waits for each registry
+   */
+  public FederatedRegistry(final Map<String, Registry> registries, final long budgetMillis) {
+    if (registries.isEmpty()) {
+      throw new IllegalArgumentException("no registries");
+    }
+    this.names = registries.keySet().toArray(new String[registries.size()]);
+    this.registries = registries.values().toArray(new Registry[registries.size()]);
+    this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    this.executor = Executors.newFixedThreadPool(Math.max(1, names.length - 1), daemonThreads("indexgl-federated"));
+  }
+
+  /**
+   * Parse the given registry files concurrently. Every registry is named after its file without the extension
+   * ("egl" for "egl.xml").
+   *
+   * @param files the registry files
+   * @param snapshotDirectory the directory to keep snapshots in or null to never use snapshots
+   * @param budgetMillis the time a search waits for each registry
+   * @return the new FederatedRegistry
+   * @throws IllegalArgumentException if two files have the same name
+   * @throws Exception
+   */
+  public static FederatedRegistry open(final List<File> files, final File snapshotDirectory, final long budgetMillis)
+      throws Exception {
+    ExecutorService loader = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(files.size(), Runtime.getRuntime().availableProcessors())),
+        daemonThreads("indexgl-federated-loader"));
+    try {
+      Map<String, Future<Registry>> loading = new LinkedHashMap<String, Future<Registry>>();
+      for (final File file : files) {
+        String name = registryName(file);
+        if (loading.containsKey(name)) {
+          throw new IllegalArgumentException("duplicate registry name '" + name + "'");
+        }
+        loading.put(name, loader.submit(new Callable<Registry>() {
+          @Override
+          public Registry call() throws Exception {
+            return Registry.openIfChanged(null, file, snapshotDirectory);
+          }
+        }));
+      }
+      Map<String, Registry> registries = new LinkedHashMap<String, Registry>();
+      for (Map.Entry<String, Future<Registry>> entry : loading.entrySet()) {
+        registries.put(entry.getKey(), get(entry.getValue()));
+      }
+      return new FederatedRegistry(registries, budgetMillis);
+    } finally {
+      loader.shutdown();
+    }
+  }
+
+  /**
+   * @return the names of all registries
+   */
+  public List<String> getNames() {
+    List<String> result = new ArrayList<String>();
+    Collections.addAll(result, names);
+    return result;
+  }
+
+  /**
+   * Suggest identifiers of all registries. Each registry suggests its best count identifiers which are then merged
+   * by their weight (shorter identifiers first like in Registry.suggest()) and the order of the registries.
+   *
+   * @param q the query
+   * @param count the number of suggestions to return (limited to Registry.MAX_SUGGESTIONS)
+   * @return the merged suggestions
+   * @throws Exception
+   */
+  public FederatedTypeaheadResult suggest(final String q, final int count) throws Exception {
+    List<String> timedOut = new ArrayList<String>();
+    List<TypeaheadResult> found = fanOut(new Task<TypeaheadResult>() {
+      @Override
+      public TypeaheadResult run(final Registry registry) throws Exception {
+        return registry.suggest(q, count);
+      }
+    }, timedOut);
+    TypeaheadResult[] results = found.toArray(new TypeaheadResult[found.size()]);
+
+    int total = 0;
+    int available = 0;
+    for (TypeaheadResult result : results) {
+      if (result != null) {
+        total += result.getTotal();
+        available += result.getResult().length;
+      }
+    }
+
+    int[] next = new int[results.length];
+    Suggestion[] merged = new Suggestion[Math.min(available, Math.max(1, Math.min(count, Registry.MAX_SUGGESTIONS)))];
+    for (int i = 0; i < merged.length; i++) {
+      int best = -1;
+      for (int r = 0; r < results.length; r++) {
+        if (results[r] == null || next[r] >= results[r].getResult().length) {
+          continue;
+        }
+        // strictly shorter so that the earlier registry wins on equal weight
+        if (best == -1 || results[r].getResult()[next[r]].length() < results[best].getResult()[next[best]].length()) {
+          best = r;
+        }
+      }
+      merged[i] = new Suggestion(results[best].getResult()[next[best]++], names[best]);
+    }
+    return new FederatedTypeaheadResult(merged, total, timedOut);
+  }
+
+  /**
+   * Look up an identifier in all registries.
+   *
+   * @param gl the identifier (case insensitive)
+   * @return the results of the registries that know the identifier (in registry order)
+   * @throws Exception
+   */
+  public FederatedGLResult getGLInfo(final String gl) throws Exception {
+    List<String> timedOut = new ArrayList<String>();
+    List<GLResult> results = fanOut(new Task<GLResult>() {
+      @Override
+      public GLResult run(final Registry registry) throws Exception {
+        return registry.getGLInfo(gl);
+      }
+    }, timedOut);
+
+    List<SourcedGLResult> found = new ArrayList<SourcedGLResult>();
+    for (int r = 0; r < results.size(); r++) {
+      if (results.get(r) != null) {
+        found.add(new SourcedGLResult(names[r], results.get(r)));
+      }
+    }
+    return new FederatedGLResult(found, timedOut);
+  }
+
+  /**
+   * Stop the search threads and release all registries.
+   *
+   * @throws IOException
+   */
+  public void close() throws IOException {
+    executor.shutdownNow();
+    for (Registry registry : registries) {
+      registry.decRef();
+    }
+  }
+
+  /**
+   * A search of a single registry.
+   */
+  private interface Task<T> {
+    T run(Registry registry) throws Exception;
+  }
+
+  /**
+   * Run the task for all registries.
+   *
+   * @return the results in registry order, null for the registries that timed out
+   */
+  private <T> List<T> fanOut(final Task<T> task, final List<String> timedOut) throws Exception {
+    long deadline = System.nanoTime() + budgetNanos;
+    List<Future<T>> futures = new ArrayList<Future<T>>();
+    for (int r = 1; r < registries.length; r++) {
+      final Registry registry = registries[r];
+      futures.add(executor.submit(new Callable<T>() {
+        @Override
+        public T call() throws Exception {
+          return task.run(registry);
+        }
+      }));
+    }
+
+    List<T> result = new ArrayList<T>(registries.length);
+    result.add(task.run(registries[0]));
+    for (int r = 1; r < registries.length; r++) {
+      try {
+        result.add(get(futures.get(r - 1), Math.max(0, deadline - System.nanoTime())));
+      } catch (TimeoutException e) {
+        timedOut.add(names[r]);
+        result.add(null);
+      }
+    }
+    return result;
+  }
+
+  private static <T> T get(final Future<T> future) throws Exception {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      throw cause(e);
+    }
+  }
+
+  private static <T> T get(final Future<T> future, final long timeoutNanos) throws Exception {
+    try {
+      return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (ExecutionException e) {
+      throw cause(e);
+    }
+  }
+
+  private static Exception cause(final ExecutionException e) {
+    if (e.getCause() instanceof Exception) {
+      return (Exception) e.getCause();
+    }
+    return e;
+  }
+
+  private static String registryName(final File file) {
+    String name = file.getName();
+    int extension = name.lastIndexOf('.');
+    return extension > 0 ? name.substring(0, extension) : name;
+  }
+
+  private static ThreadFactory daemonThreads(final String name) {
+    final AtomicInteger count = new AtomicInteger();
+    return new ThreadFactory() {
+      @Override
+      public Thread newThread(final Runnable runnable) {
+        Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+  }
+
+  /**
+   * The FederatedTypeaheadResult is returned for the suggest() call.
+   */
+  public static class FederatedTypeaheadResult {
+    private final Suggestion[] result;
+    private final int total;
+    private final List<String> timedOut;
+
+    public FederatedTypeaheadResult(final Suggestion[] result, final int total, final List<String> timedOut) {
+      this.result = result;
+      this.total = total;
+      this.timedOut = timedOut;
+    }
+
+    public Suggestion[] getResult() {
+      return result;
+    }
+
+    /**
+     * @return the number of identifiers found by all registries that answered in time
+     */
+    public int getTotal() {
+      return total;
+    }
+
+    /**
+     * @return the names of the registries that didn't answer in time
+     */
+    public List<String> getTimedOut() {
+      return timedOut;
+    }
+  }
+
+  /**
+   * A suggested identifier and the name of the registry it comes from.
+   */
+  public static class Suggestion {
+    private final String name;
+    private final String registry;
+
+    public Suggestion(final String name, final String registry) {
+      this.name = name;
+      this.registry = registry;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getRegistry() {
+      return registry;
+    }
+  }
+
+  /**
+   * The FederatedGLResult is returned for the getGLInfo() call.
+   */
+  public static class FederatedGLResult {
+    private final List<SourcedGLResult> results;
+    private final List<String> timedOut;
+
+    public FederatedGLResult(final List<SourcedGLResult> results, final List<String> timedOut) {
+      this.results = results;
+      this.timedOut = timedOut;
+    }
+
+    public List<SourcedGLResult> getResults() {
+      return results;
+    }
+
+    public List<String> getTimedOut() {
+      return timedOut;
+    }
+  }
+
+  /**
+   * A GLResult and the name of the registry it comes from.
+   */
+  public static class SourcedGLResult {
+    private final String registry;
+    private final GLResult result;
+
+    public SourcedGLResult(final String registry, final GLResult result) {
+      this.registry = registry;
+      this.result = result;
+    }
+
+    public String getRegistry() {
+      return registry;
+    }
+
+    public GLResult getResult() {
+      return result;
+    }
+  }
+}
@@ -0,0 +1,177 @@
+package com.lessvoid.indexgl.registry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.apache.lucene.util.automaton.LevenshteinAutomata;
+
+/**
+ * Finds identifiers starting with something close to the query ("glBindFramebufer" finds "glBindFramebuffer",
+ * "GL_TEXTURE_2D_ARARY" finds "GL_TEXTURE_2D_ARRAY"). The number of edits allowed grows with the length of the
+ * query. Identifiers two edits away are only looked for when nothing is a single edit away - the closest
+ * identifiers are most likely the ones meant. Shorter identifiers come first.
+ *
+ * The Levenshtein automaton of the query is run over the sorted dictionary of all lowercase identifiers. The
+ * automaton is deterministic already so, unlike a Lucene FuzzyQuery, nothing has to be compiled per query.
+ * Neighbouring identifiers share long prefixes and the states reached for the shared prefix are kept, so most
+ * identifiers cost a single step or none at all. The search stops when its time budget is used up and returns what
+ * has been found so far.
+ *
+ * @author void
+ */
+class FuzzyMatcher {
+  /**
+   * Queries shorter than this are not matched fuzzy at all, they would match almost everything.
+   */
+  private static final int MIN_LENGTH = 4;
+
+  /**
+   * Queries of this length and longer may be two edits away.
+   */
+  private static final int TWO_EDITS_LENGTH = 8;
+
+  /**
+   * The maximum number of identifiers collected for a single distance.
+   */
+  private static final int MAX_MATCHES = 1000;
+
+  private final long budgetNanos;
+
+  /**
+   * The lowercase identifiers in sort order.
+   */
+  private final String[] dictionary;
+  private final int maxLength;
+
+  /**
+   * Lowercase identifier to identifier.
+   */
+  private final Map<String, String> names = new HashMap<String, String>();
+
+  /**
+   * Create a new FuzzyMatcher.
+   *
+   * @param identifiers all identifiers
+   * @param budgetNanos the time a single match() may take
+   */
+  FuzzyMatcher(final List<String> identifiers, final long budgetNanos) {
+    this.budgetNanos = budgetNanos;
+
+    int longest = 0;
+    for (String identifier : identifiers) {
+      names.put(identifier.toLowerCase(), identifier);
+      longest = Math.max(longest, identifier.length());
+    }
+    this.dictionary = names.keySet().toArray(new String[names.size()]);
+    this.maxLength = longest;
+    Arrays.sort(dictionary);
+  }
+
+  /**
+   * @param length the length of the query
+   * @return the number of edits allowed for a query of this length
+   */
+  static int maxEdits(final int length) {
+    if (length < MIN_LENGTH) {
+      return 0;
+    }
+    return length < TWO_EDITS_LENGTH ? 1 : 2;
+  }
+
+  /**
+   * Find identifiers starting with something close to the query.
+   *
+   * @param q the query (a single word, queries with whitespace are not matched)
+   * @param count the maximum number of identifiers to return
+   * @param exclude the lowercase identifiers not to return (the exact matches already found)
+   * @return the identifiers found, closest first
+   */
+  List<String> match(final String q, final int count, final Set<String> exclude) {
+    long start = System.nanoTime();
+    String key = q.trim().toLowerCase();
+    List<String> result = new ArrayList<String>();
+    if (count < 1 || key.matches(".*\\s.*")) {
+      return result;
+    }
+
+    // the automaton for two edits is a lot more expensive to build than the one for a single edit
+    LevenshteinAutomata levenshtein = new LevenshteinAutomata(key, true);
+    Set<String> closer = new HashSet<String>();
+    for (int edits = 1; edits <= maxEdits(key.length()) && result.isEmpty(); edits++) {
+      CharacterRunAutomaton automaton = new CharacterRunAutomaton(levenshtein.toAutomaton(edits));
+      List<String> found = scan(automaton, start);
+      Collections.sort(found, SHORTEST_FIRST);
+      for (int i = 0; i < found.size() && result.size() < count; i++) {
+        String name = found.get(i);
+        if (!exclude.contains(name) && !closer.contains(name)) {
+          result.add(names.get(name));
+        }
+      }
+      closer.addAll(found);
+      if (System.nanoTime() - start > budgetNanos) {
+        break;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Run the automaton over the dictionary.
+   *
+   * @return the identifiers with a prefix accepted by the automaton
+   */
+  private List<String> scan(final CharacterRunAutomaton automaton, final long start) {
+    List<String> result = new ArrayList<String>();
+    // states[i] is the state after the first i characters of the previous identifier (-1 when there is no way to
+    // get to the key anymore, accepting when that prefix is close enough), valid of them are still usable
+    int[] states = new int[maxLength + 1];
+    states[0] = automaton.getInitialState();
+    int valid = 0;
+    String previous = "";
+    for (int d = 0; d < dictionary.length && result.size() < MAX_MATCHES; d++) {
+      if ((d & 0xff) == 0 && System.nanoTime() - start > budgetNanos) {
+        break;
+      }
+      String name = dictionary[d];
+      int i = Math.min(valid, commonPrefix(previous, name));
+      int state = states[i];
+      while (state != -1 && !automaton.isAccept(state) && i < name.length()) {
+        state = automaton.step(state, name.charAt(i));
+        states[++i] = state;
+      }
+      valid = i;
+      previous = name;
+      if (state != -1 && automaton.isAccept(state)) {
+        result.add(name);
+      }
+    }
+    return result;
+  }
+
+  private static int commonPrefix(final String a, final String b) {
+    int length = Math.min(a.length(), b.length());
+    int i = 0;
+    while (i < length && a.charAt(i) == b.charAt(i)) {
+      i++;
+    }
+    return i;
+  }
+
+  private static final Comparator<String> SHORTEST_FIRST = new Comparator<String>() {
+    @Override
+    public int compare(final String a, final String b) {
+      if (a.length() != b.length()) {
+        return a.length() - b.length();
+      }
+      return a.compareTo(b);
+    }
+  };
+}
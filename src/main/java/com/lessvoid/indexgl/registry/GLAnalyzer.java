@@ -10,6 +10,7 @@ import org.apache.lucene.analysis.core.LowerCaseFilter;
 import org.apache.lucene.analysis.core.StopFilter;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
 import org.apache.lucene.analysis.miscellaneous.WordDelimiterFilter;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
 import org.apache.lucene.analysis.ngram.NGramTokenFilter;
 import org.apache.lucene.analysis.util.CharArraySet;
 import org.apache.lucene.util.Version;
@@ -20,10 +21,35 @@ import org.apache.lucene.util.Version;
  * @author void
  */
 public class GLAnalyzer extends Analyzer {
+
+  /**
+   * The way identifiers are split into terms.
+   */
+  public static enum Mode {
+    /**
+     * Every substring of the identifier and its word parts is a term. This finds "egin" in "glBegin" but creates a
+     * lot of terms.
+     */
+    NGram,
+
+    /**
+     * The prefixes of the rest of the identifier starting at every word part are the terms ("glColor3fv" gives "g",
+     * "gl", ..., "c", "co", ..., "3", "3f", "3fv", "f", "fv"). This finds everything starting at a word part with
+     * a fraction of the terms.
+     */
+    WordPartEdgeNGram;
+  }
+
   private final Version version;
+  private final Mode mode;
 
   public GLAnalyzer(final Version version) {
+    this(version, Mode.NGram);
+  }
+
+  public GLAnalyzer(final Version version, final Mode mode) {
     this.version = version;
+    this.mode = mode;
   }
 
   @Override
@@ -31,6 +57,13 @@ public class GLAnalyzer extends Analyzer {
     Tokenizer source = new WhitespaceTokenizer(version, reader);
     TokenStream stream = source;
 
+    if (mode == Mode.WordPartEdgeNGram) {
+      stream = new WordPartSuffixFilter(stream);
+      stream = new LowerCaseFilter(version, stream);
+      stream = new EdgeNGramTokenFilter(version, stream, 1, 100);
+      return new TokenStreamComponents(source, stream);
+    }
+
     stream = new WordDelimiterFilter(stream, WordDelimiterFilter.GENERATE_WORD_PARTS
         | WordDelimiterFilter.GENERATE_NUMBER_PARTS |
         // WordDelimiterFilter.CATENATE_WORDS |
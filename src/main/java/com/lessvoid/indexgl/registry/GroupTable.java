@@ -0,0 +1,204 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.AtomicReader;
+
+import com.lessvoid.indexgl.registry.Registry.GroupResult;
+import com.lessvoid.indexgl.registry.Registry.GroupsResult;
+
+/**
+ * The immutable enum group to enum incidence table. Groups are numbered in name order, enums keep the ordinals of
+ * the ExtensionTable. Both directions are stored as sorted int arrays (one offsets array and one values array each)
+ * so the enums of a group (in registry order) and the groups of an enum (in name order) are a single array range
+ * and a lookup is a hash lookup followed by an array copy. Enums of a group that are neither part of a feature nor of
+ * an extension are not kept.
+ *
+ * @author void
+ */
+class GroupTable {
+  private final ExtensionTable extensions;
+
+  /**
+   * The group names by group ordinal.
+   */
+  private final String[] names;
+
+  /**
+   * Lowercase group name to group ordinal.
+   */
+  private final Map<String, Integer> ordinals;
+
+  /**
+   * The enums of group g are enums[enumOffsets[g]] until enums[enumOffsets[g+1]].
+   */
+  private final int[] enumOffsets;
+  private final int[] enums;
+
+  /**
+   * The groups of enum i are groups[groupOffsets[i]] until groups[groupOffsets[i+1]].
+   */
+  private final int[] groupOffsets;
+  private final int[] groups;
+
+  private GroupTable(
+      final ExtensionTable extensions,
+      final String[] names,
+      final Map<String, Integer> ordinals,
+      final int[] enumOffsets,
+      final int[] enums,
+      final int[] groupOffsets,
+      final int[] groups) {
+    this.extensions = extensions;
+    this.names = names;
+    this.ordinals = ordinals;
+    this.enumOffsets = enumOffsets;
+    this.enums = enums;
+    this.groupOffsets = groupOffsets;
+    this.groups = groups;
+  }
+
+  /**
+   * Build the table from the group documents which follow the enums documents in the index.
+   *
+   * @param reader the reader to read the documents from
+   * @param matrix the matrix of the identifiers
+   * @param extensions the extension table with the ordinals of the identifiers only defined by extensions
+   * @return the new GroupTable
+   * @throws IOException
+   */
+  static GroupTable build(
+      final AtomicReader reader,
+      final CompatibilityMatrix matrix,
+      final ExtensionTable extensions) throws IOException {
+    Map<String, String[]> members = new HashMap<String, String[]>();
+    for (int doc = matrix.size(); doc < reader.maxDoc(); doc++) {
+      Document document = reader.document(doc);
+      String name = document.get("group");
+      if (name != null) {
+        members.put(name, document.getValues("group-enum"));
+      }
+    }
+    String[] names = members.keySet().toArray(new String[members.size()]);
+    Arrays.sort(names);
+
+    Map<String, Integer> ordinals = new HashMap<String, Integer>();
+    int[] enumOffsets = new int[names.length + 1];
+    int[][] groupEnums = new int[names.length][];
+    for (int group = 0; group < names.length; group++) {
+      ordinals.put(names[group].toLowerCase(), group);
+      String[] groupMembers = members.get(names[group]);
+      int[] ordinalsOfGroup = new int[groupMembers.length];
+      int count = 0;
+      for (String member : groupMembers) {
+        int ordinal = matrix.ordinal(member);
+        if (ordinal == -1) {
+          ordinal = extensions.extensionIdentifier(member);
+        }
+        if (ordinal != -1) {
+          ordinalsOfGroup[count++] = ordinal;
+        }
+      }
+      groupEnums[group] = unique(Arrays.copyOf(ordinalsOfGroup, count));
+      enumOffsets[group + 1] = enumOffsets[group] + groupEnums[group].length;
+    }
+    int[] enums = new int[enumOffsets[names.length]];
+    for (int group = 0; group < names.length; group++) {
+      System.arraycopy(groupEnums[group], 0, enums, enumOffsets[group], groupEnums[group].length);
+    }
+
+    // the inverse direction, groups are walked in order so every range is sorted already
+    int identifierCount = extensions.identifierCount();
+    int[] groupOffsets = new int[identifierCount + 1];
+    for (int e : enums) {
+      groupOffsets[e + 1]++;
+    }
+    for (int i = 0; i < identifierCount; i++) {
+      groupOffsets[i + 1] += groupOffsets[i];
+    }
+    int[] groups = new int[enums.length];
+    int[] next = Arrays.copyOf(groupOffsets, identifierCount);
+    for (int group = 0; group < names.length; group++) {
+      for (int i = enumOffsets[group]; i < enumOffsets[group + 1]; i++) {
+        groups[next[enums[i]]++] = group;
+      }
+    }
+
+    return new GroupTable(extensions, names, ordinals, enumOffsets, enums, groupOffsets, groups);
+  }
+
+  /**
+   * @return the number of groups
+   */
+  int size() {
+    return names.length;
+  }
+
+  /**
+   * Find the ordinal of a group. The lookup is case insensitive.
+   *
+   * @param name the group name
+   * @return the group ordinal or -1 if there is no such group
+   */
+  int group(final String name) {
+    Integer ordinal = ordinals.get(name.toLowerCase());
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  /**
+   * @param ordinal the identifier ordinal
+   * @return the names of the groups containing the identifier in name order
+   */
+  List<String> groupNames(final int ordinal) {
+    if (ordinal < 0 || ordinal + 1 >= groupOffsets.length) {
+      return Collections.emptyList();
+    }
+    List<String> result = new ArrayList<String>(groupOffsets[ordinal + 1] - groupOffsets[ordinal]);
+    for (int i = groupOffsets[ordinal]; i < groupOffsets[ordinal + 1]; i++) {
+      result.add(names[groups[i]]);
+    }
+    return result;
+  }
+
+  /**
+   * Create the GroupResult for the given group.
+   *
+   * @param group the group ordinal
+   * @return the GroupResult
+   */
+  GroupResult result(final int group) {
+    List<String> groupEnums = new ArrayList<String>(enumOffsets[group + 1] - enumOffsets[group]);
+    for (int i = enumOffsets[group]; i < enumOffsets[group + 1]; i++) {
+      groupEnums.add(extensions.identifierName(enums[i]));
+    }
+    return new GroupResult(names[group], groupEnums);
+  }
+
+  /**
+   * Create the GroupsResult for the given identifier.
+   *
+   * @param ordinal the identifier ordinal
+   * @return the GroupsResult
+   */
+  GroupsResult groupsResult(final int ordinal) {
+    return new GroupsResult(extensions.identifierName(ordinal), groupNames(ordinal));
+  }
+
+  private static int[] unique(final int[] values) {
+    Arrays.sort(values);
+    int count = 0;
+    for (int i = 0; i < values.length; i++) {
+      if (i == 0 || values[i] != values[i - 1]) {
+        values[count++] = values[i];
+      }
+    }
+    return Arrays.copyOf(values, count);
+  }
+}
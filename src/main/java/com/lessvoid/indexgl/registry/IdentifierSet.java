@@ -0,0 +1,52 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.WAH8DocIdSet;
+
+/**
+ * The result of a set query: a compressed set of identifiers in registry order.
+ *
+ * @author void
+ */
+public class IdentifierSet {
+  private final WAH8DocIdSet ordinals;
+  private final CompatibilityMatrix matrix;
+
+  IdentifierSet(final WAH8DocIdSet ordinals, final CompatibilityMatrix matrix) {
+    this.ordinals = ordinals;
+    this.matrix = matrix;
+  }
+
+  /**
+   * @return the number of identifiers in the set
+   */
+  public int size() {
+    return ordinals.cardinality();
+  }
+
+  /**
+   * Add a page of identifier names to the given list.
+   *
+   * @param offset the number of identifiers to skip
+   * @param count the maximum number of identifiers to add
+   * @param result the list to add the names to
+   * @throws IOException
+   */
+  public void names(final int offset, final int count, final List<String> result) throws IOException {
+    DocIdSetIterator iterator = ordinals.iterator();
+    int skipped = 0;
+    int added = 0;
+    for (int ordinal = iterator.nextDoc(); ordinal != DocIdSetIterator.NO_MORE_DOCS && added < count;
+        ordinal = iterator.nextDoc()) {
+      if (skipped < offset) {
+        skipped++;
+        continue;
+      }
+      result.add(matrix.name(ordinal));
+      added++;
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.WAH8DocIdSet;
+
+import com.lessvoid.indexgl.registry.CompatibilityMatrix.Profile;
+
+/**
+ * Compressed sets of identifier ordinals that can be combined with SetExpressions. There is a set for every version
+ * of every profile with all identifiers supported in that version:
+ *
+ * <pre>
+ * gl:3.3         OpenGL 3.3 (compatibility profile)
+ * gl:3.3:core    OpenGL 3.3 core profile
+ * gles1:1.0      OpenGL ES 1.x
+ * gles2:2.0      OpenGL ES 2.0 and later
+ * </pre>
+ *
+ * as well as the sets "commands", "enums" and "all".
+ *
+ * @author void
+ */
+class IdentifierSets {
+  private final Map<String, WAH8DocIdSet> sets;
+
+  private IdentifierSets(final Map<String, WAH8DocIdSet> sets) {
+    this.sets = sets;
+  }
+
+  /**
+   * Build all sets from the matrix and the type of the identifier documents.
+   *
+   * @param reader the reader to read the identifier types from
+   * @param matrix the matrix
+   * @param glVersions the GL versions
+   * @param glCoreVersions the GL versions that have a core profile
+   * @param glES1Versions the GL ES 1.x versions
+   * @param glES2Versions the GL ES 2.x and later versions
+   * @return the new IdentifierSets
+   * @throws IOException
+   */
+  static IdentifierSets build(
+      final AtomicReader reader,
+      final CompatibilityMatrix matrix,
+      final Set<String> glVersions,
+      final Set<String> glCoreVersions,
+      final Set<String> glES1Versions,
+      final Set<String> glES2Versions) throws IOException {
+    Map<String, WAH8DocIdSet> sets = new LinkedHashMap<String, WAH8DocIdSet>();
+    addVersions(sets, matrix, Profile.Compatibility, "gl:", "", glVersions);
+    addVersions(sets, matrix, Profile.Core, "gl:", ":core", glCoreVersions);
+    addVersions(sets, matrix, Profile.ES1, "gles1:", "", glES1Versions);
+    addVersions(sets, matrix, Profile.ES2, "gles2:", "", glES2Versions);
+
+    WAH8DocIdSet.Builder commands = new WAH8DocIdSet.Builder();
+    WAH8DocIdSet.Builder enums = new WAH8DocIdSet.Builder();
+    WAH8DocIdSet.Builder all = new WAH8DocIdSet.Builder();
+    for (int ordinal = 0; ordinal < matrix.size(); ordinal++) {
+      if (matrix.name(ordinal) == null) {
+        continue;
+      }
+      all.add(ordinal);
+      if ("command".equals(reader.document(ordinal).get("type"))) {
+        commands.add(ordinal);
+      } else {
+        enums.add(ordinal);
+      }
+    }
+    sets.put("commands", commands.build());
+    sets.put("enums", enums.build());
+    sets.put("all", all.build());
+    return new IdentifierSets(sets);
+  }
+
+  /**
+   * @param name the name of a set
+   * @return the set or null if there is no such set
+   */
+  WAH8DocIdSet get(final String name) {
+    return sets.get(name.toLowerCase());
+  }
+
+  /**
+   * Find the set of a version of a profile. Before 3.2 OpenGL had no core profile so the set of the version itself is
+   * returned for the core profile of those versions.
+   *
+   * @param api the api ("gl", "gles1" or "gles2")
+   * @param version the version
+   * @param core true for the OpenGL core profile
+   * @return the set or null if the api doesn't have the version
+   */
+  WAH8DocIdSet get(final String api, final String version, final boolean core) {
+    String name = api + ":" + version;
+    if (core && "gl".equalsIgnoreCase(api) && get(name + ":core") != null) {
+      return get(name + ":core");
+    }
+    return get(name);
+  }
+
+  /**
+   * @return the names of all sets
+   */
+  List<String> names() {
+    return Collections.unmodifiableList(new ArrayList<String>(sets.keySet()));
+  }
+
+  /**
+   * @return the memory used by all sets in bytes
+   */
+  long ramBytesUsed() {
+    long result = 0;
+    for (WAH8DocIdSet set : sets.values()) {
+      result += set.ramBytesUsed();
+    }
+    return result;
+  }
+
+  static WAH8DocIdSet union(final WAH8DocIdSet a, final WAH8DocIdSet b) {
+    return WAH8DocIdSet.union(Arrays.asList(a, b));
+  }
+
+  static WAH8DocIdSet intersect(final WAH8DocIdSet a, final WAH8DocIdSet b) {
+    return WAH8DocIdSet.intersect(Arrays.asList(a, b));
+  }
+
+  /**
+   * @return all ordinals of a that are not in b
+   * @throws IOException
+   */
+  static WAH8DocIdSet difference(final WAH8DocIdSet a, final WAH8DocIdSet b) throws IOException {
+    WAH8DocIdSet.Builder result = new WAH8DocIdSet.Builder();
+    DocIdSetIterator left = a.iterator();
+    DocIdSetIterator right = b.iterator();
+    int excluded = right.nextDoc();
+    for (int ordinal = left.nextDoc(); ordinal != DocIdSetIterator.NO_MORE_DOCS; ordinal = left.nextDoc()) {
+      if (excluded < ordinal) {
+        excluded = right.advance(ordinal);
+      }
+      if (excluded != ordinal) {
+        result.add(ordinal);
+      }
+    }
+    return result.build();
+  }
+
+  private static void addVersions(
+      final Map<String, WAH8DocIdSet> sets,
+      final CompatibilityMatrix matrix,
+      final Profile profile,
+      final String prefix,
+      final String suffix,
+      final Set<String> profileVersions) {
+    for (String version : profileVersions) {
+      int column = matrix.getVersions().indexOf(version);
+      if (column == -1) {
+        continue;
+      }
+      long bit = 1L << column;
+      WAH8DocIdSet.Builder builder = new WAH8DocIdSet.Builder();
+      for (int ordinal = 0; ordinal < matrix.size(); ordinal++) {
+        if ((matrix.supported(ordinal, profile) & bit) != 0) {
+          builder.add(ordinal);
+        }
+      }
+      sets.put(prefix + version + suffix, builder.build());
+    }
+  }
+}
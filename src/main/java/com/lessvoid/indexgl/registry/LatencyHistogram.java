@@ -0,0 +1,147 @@
+package com.lessvoid.indexgl.registry;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of durations in nanoseconds. Like an HdrHistogram the values are counted in buckets with a
+ * fixed relative precision: every power of two is split into SUB_BUCKETS buckets so a value is off by at most 1/32
+ * (about 3%). Recording a value is a single atomic increment (plus the sum and the maximum) and the memory used
+ * doesn't depend on the number of values recorded.
+ *
+ * @author void
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * Values up to 2^40ns (about 18 minutes) are counted exactly, larger values are counted in the last bucket.
+   */
+  private static final int MAX_MAGNITUDE = 40;
+  private static final int BUCKETS = SUB_BUCKETS + (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Record a duration.
+   *
+   * @param nanos the duration in nanoseconds
+   */
+  public void record(final long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(bucket(value));
+    sum.addAndGet(value);
+    long currentMax = max.get();
+    while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+      currentMax = max.get();
+    }
+  }
+
+  /**
+   * Record the time passed since the given start.
+   *
+   * @param startNanos the start as returned by System.nanoTime()
+   */
+  public void recordSince(final long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * @return a copy of the current counts to calculate percentiles from
+   */
+  public Snapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < copy.length; i++) {
+      copy[i] = counts.get(i);
+      count += copy[i];
+    }
+    return new Snapshot(copy, count, sum.get(), max.get());
+  }
+
+  static int bucket(final long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int magnitude = 63 - Long.numberOfLeadingZeros(value);
+    if (magnitude > MAX_MAGNITUDE) {
+      return BUCKETS - 1;
+    }
+    int shift = magnitude - SUB_BUCKET_BITS;
+    // value >>> shift is in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+    return SUB_BUCKETS + shift * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  /**
+   * @return the largest value counted in the given bucket
+   */
+  static long highestValue(final int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+    long subBucket = SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * The counts of a LatencyHistogram at a certain point in time.
+   */
+  public static class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    private Snapshot(final long[] counts, final long count, final long sum, final long max) {
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+      this.max = max;
+    }
+
+    /**
+     * @return the number of values recorded
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * @return the sum of all values recorded in nanoseconds
+     */
+    public long getSum() {
+      return sum;
+    }
+
+    /**
+     * @return the largest value recorded in nanoseconds
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * @param percentile the percentile (0 to 100)
+     * @return the value in nanoseconds that the given percentage of all values are less than or equal to or 0 when
+     * no values have been recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(highestValue(i), max);
+        }
+      }
+      return max;
+    }
+  }
+}
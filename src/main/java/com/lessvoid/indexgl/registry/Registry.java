@@ -1,12 +1,20 @@
 package com.lessvoid.indexgl.registry;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.DecimalFormat;
 import java.text.MessageFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Hashtable;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -15,9 +23,9 @@ import java.util.TreeSet;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.AtomicReader;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.Fields;
-import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.MultiFields;
@@ -25,11 +33,6 @@ import org.apache.lucene.index.SlowCompositeReaderWrapper;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
-import org.apache.lucene.sandbox.queries.DuplicateFilter;
-import org.apache.lucene.sandbox.queries.DuplicateFilter.KeepMode;
-import org.apache.lucene.search.BooleanClause.Occur;
-import org.apache.lucene.search.BooleanQuery;
-import org.apache.lucene.search.FilteredQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.search.Query;
@@ -40,32 +43,69 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.Version;
+import org.apache.lucene.util.WAH8DocIdSet;
 
 /**
- * The Registry holds the Lucene RAMDirectoy and provides methods to search it.
+ * The Registry holds the Lucene Directory and provides methods to search it.
  * 
  * @author void
  */
 public class Registry {
   /**
-   * Default analyzer.
+   * Default analyzer mode. The compiled registry is built with this mode.
    */
-  private static final Analyzer ANALYZER = new GLAnalyzer(Version.LUCENE_44);
+  public static final GLAnalyzer.Mode DEFAULT_ANALYZER_MODE = GLAnalyzer.Mode.NGram;
 
   /**
    * Number of hits per page.
    */
   private static final int HITS_PER_PAGE = 10;
 
+  /**
+   * Maximum number of suggestions a single suggest() call returns.
+   */
+  public static final int MAX_SUGGESTIONS = 100;
+
+  /**
+   * The time a single fuzzy search may take. What has been found when it is up is returned.
+   */
+  private static final long FUZZY_BUDGET_NANOS = 5000000;
+
+  /**
+   * Maximum number of queries kept in the typeahead cache.
+   */
+  private static final int TYPEAHEAD_CACHE_SIZE = 10000;
+
+  /**
+   * Increase this when the layout of the index changes. Snapshots and compiled registries of a different version are
+   * ignored.
+   */
+  static final int INDEX_FORMAT_VERSION = 8;
+
+  /**
+   * The compiled registry resource created at build time by the RegistryCompiler.
+   */
+  private static final String COMPILED_REGISTRY = "/gl.registry";
+
+  /**
+   * The analyzer used for the name field.
+   */
+  private final Analyzer analyzer;
+
+  /**
+   * The checksum of the gl.xml the index was built from.
+   */
+  private final String checksum;
+
   /**
    * The lucene directory.
    */
-  private final Directory index = new RAMDirectory();
+  private final Directory index;
 
   /**
    * The lucene directory reader.
    */
-  private final IndexReader reader;
+  private final AtomicReader reader;
 
   /**
    * The lucene index searcher.
@@ -75,7 +115,7 @@ public class Registry {
   /**
    * The parser.
    */
-  private final RegistryParser parser;
+  private final RegistryParser parser = new RegistryParser();
 
   /**
    * GL versions.
@@ -85,187 +125,592 @@ public class Registry {
   private final Set<String> glES1Versions = new TreeSet<String>();
   private final Set<String> glES2Versions = new TreeSet<String>();
 
+  /**
+   * The api:number of the features of the other apis (EGL, GLX, WGL).
+   */
+  private final Set<String> otherApiNumbers = new TreeSet<String>();
+
+  /**
+   * The precomputed support information for every identifier.
+   */
+  private final CompatibilityMatrix matrix;
+
+  /**
+   * The identifier to extension incidence table.
+   */
+  private final ExtensionTable extensions;
+
+  /**
+   * The signatures of all commands.
+   */
+  private final SignatureTable signatures;
+
+  /**
+   * The names of the enums by value.
+   */
+  private final EnumValueTable enumValues;
+
+  /**
+   * The alias and vecequiv links between commands.
+   */
+  private final AliasGraph aliases;
+
+  /**
+   * The enum groups and their enums.
+   */
+  private final GroupTable groups;
+
+  /**
+   * The identifier sets per api, version and profile for query().
+   */
+  private final IdentifierSets identifierSets;
+
+  /**
+   * The prefix suggester for all identifiers.
+   */
+  private final Suggester suggester;
+
+  /**
+   * The cache in front of the suggester.
+   */
+  private final TypeaheadCache typeaheadCache;
+
+  /**
+   * The typo tolerant fallback of typeahead() and suggest().
+   */
+  private final FuzzyMatcher fuzzyMatcher;
+
+  /**
+   * The time spent in suggest(), loading the names found and in the fuzzy fallback. The typeahead cache keeps the
+   * times of its own phases.
+   */
+  private final LatencyHistogram nameLoadTime = new LatencyHistogram();
+  private final LatencyHistogram suggestTime = new LatencyHistogram();
+  private final LatencyHistogram fuzzyTime = new LatencyHistogram();
+
   /**
    * Registry constructor. This will parse the registry.
    */
   public Registry() throws Exception {
-    IndexWriter indexWriter = createIndexWriter();
-    parser = new RegistryParser();
-    parser.process(Registry.class.getResourceAsStream("/gl.xml"), indexWriter);
-    indexWriter.close();
+    this(null);
+  }
+
+  /**
+   * Registry constructor. When a snapshot directory is given the index is opened memory mapped from a snapshot of
+   * a previous run. If there is no snapshot for the current registry yet it is loaded from the compiled registry
+   * (or parsed when there is none) and a new snapshot is written for the next start.
+   *
+   * @param snapshotDirectory the directory to keep snapshots in or null to never use snapshots
+   */
+  public Registry(final File snapshotDirectory) throws Exception {
+    this(DEFAULT_ANALYZER_MODE, snapshotDirectory);
+  }
+
+  /**
+   * Registry constructor. The compiled registry is only used for the DEFAULT_ANALYZER_MODE, with any other mode the
+   * registry is parsed (or opened from a snapshot for the same mode).
+   *
+   * @param analyzerMode the way identifiers are analyzed for typeahead()
+   * @param snapshotDirectory the directory to keep snapshots in or null to never use snapshots
+   */
+  public Registry(final GLAnalyzer.Mode analyzerMode, final File snapshotDirectory) throws Exception {
+    this(openCompiledRegistry(analyzerMode), analyzerMode, snapshotDirectory);
+  }
+
+  /**
+   * Registry constructor.
+   *
+   * @param archive the compiled registry to load or null to parse the gl.xml
+   * @param analyzerMode the way identifiers are analyzed for typeahead()
+   * @param snapshotDirectory the directory to keep snapshots in or null to never use snapshots
+   */
+  Registry(
+      final RegistryArchive archive,
+      final GLAnalyzer.Mode analyzerMode,
+      final File snapshotDirectory) throws Exception {
+    this(
+        archive,
+        archive == null ? read(Registry.class.getResourceAsStream("/gl.xml")) : null,
+        analyzerMode,
+        snapshotDirectory);
+  }
+
+  /**
+   * Registry constructor.
+   *
+   * @param archive the compiled registry to load or null to parse the registryData
+   * @param registryData the gl.xml to parse when there is no archive
+   * @param analyzerMode the way identifiers are analyzed for typeahead()
+   * @param snapshotDirectory the directory to keep snapshots in or null to never use snapshots
+   */
+  private Registry(
+      final RegistryArchive archive,
+      final byte[] registryData,
+      final GLAnalyzer.Mode analyzerMode,
+      final File snapshotDirectory) throws Exception {
+    analyzer = new GLAnalyzer(Version.LUCENE_44, analyzerMode);
+    checksum = archive != null ? archive.getChecksum() : RegistryArchive.checksum(registryData);
+
+    RegistrySnapshot snapshot = null;
+    if (snapshotDirectory != null) {
+      snapshot = new RegistrySnapshot(snapshotDirectory, checksum, analyzerMode);
+    }
+
+    if (snapshot != null && snapshot.exists()) {
+      index = snapshot.open(versionSets());
+    } else {
+      index = new RAMDirectory();
+      if (archive != null) {
+        archive.read(index, versionSets());
+      } else {
+        IndexWriter indexWriter = createIndexWriter();
+        parser.process(new ByteArrayInputStream(registryData), indexWriter);
+        indexWriter.close();
+        readVersions();
+      }
+      if (snapshot != null) {
+        writeSnapshot(snapshot);
+      }
+    }
 
     reader = SlowCompositeReaderWrapper.wrap(DirectoryReader.open(index));
     searcher = new IndexSearcher(reader);
 
-    DirectoryReader reader = DirectoryReader.open(index);
-    Fields fields = MultiFields.getFields(reader);
-    if (fields != null) {
-      Terms terms = fields.terms("api-number");
-      if (terms != null) {
-        TermsEnum termsEnum = terms.iterator(null);
-        BytesRef text;
-        while ((text = termsEnum.next()) != null) {
-          String apiNumber = text.utf8ToString();
-          if (apiNumber.startsWith("gl:")) {
-            String api = apiNumber.substring(3, apiNumber.length());
-            glVersions.add(api);
-            if (api.startsWith("3.3") || api.startsWith("3.2") || api.startsWith("4.")) {
-              glCoreVersions.add(api);
-            }
-          } else if (apiNumber.startsWith("gles1")) {
-            glES1Versions.add(apiNumber.substring(6, apiNumber.length()));
-          } else if (apiNumber.startsWith("gles2")) {
-            glES2Versions.add(apiNumber.substring(6, apiNumber.length()));
-          }
-        }
-      }
+    matrix = CompatibilityMatrix.build(
+        reader, glVersions, glCoreVersions, glES1Versions, glES2Versions, otherApiNumbers);
+    extensions = ExtensionTable.build(reader, matrix);
+    signatures = SignatureTable.build(reader, matrix, extensions);
+    enumValues = EnumValueTable.build(reader, matrix);
+    aliases = AliasGraph.build(reader, matrix, extensions);
+    groups = GroupTable.build(reader, matrix, extensions);
+    identifierSets = IdentifierSets.build(
+        reader, matrix, glVersions, glCoreVersions, glES1Versions, glES2Versions);
+    suggester = createSuggester();
+    typeaheadCache = new TypeaheadCache(suggester, TYPEAHEAD_CACHE_SIZE);
+    fuzzyMatcher = new FuzzyMatcher(identifierNames(), FUZZY_BUDGET_NANOS);
+  }
+
+  /**
+   * Load the gl.xml from a file unless this registry was built from the same gl.xml already. The new registry is
+   * completely built (and its typeahead cache warmed with the queries cached by the current registry) before it is
+   * returned so it can be swapped in without slowing down any request. This is meant to be called from a background
+   * thread while the current registry keeps serving requests.
+   *
+   * @param current the registry currently used or null
+   * @param registryFile the gl.xml
+   * @param snapshotDirectory the directory to keep snapshots in or null to never use snapshots
+   * @return the new registry or null when the file has the same checksum as the current registry
+   * @throws Exception
+   */
+  public static Registry openIfChanged(final Registry current, final File registryFile, final File snapshotDirectory)
+      throws Exception {
+    byte[] registryData = read(new FileInputStream(registryFile));
+    if (current != null && current.checksum.equals(RegistryArchive.checksum(registryData))) {
+      return null;
+    }
+    Registry result = new Registry(null, registryData, DEFAULT_ANALYZER_MODE, snapshotDirectory);
+    if (current != null) {
+      result.typeaheadCache.warm(current.typeaheadCache.queries());
     }
+    return result;
+  }
+
+  /**
+   * Increment the reference count of this registry unless it has been released already. Like a Lucene IndexReader
+   * a registry starts with a reference count of 1 and its index is closed when the count drops to 0.
+   *
+   * @return true if the reference count was incremented
+   */
+  public boolean tryIncRef() {
+    return reader.tryIncRef();
+  }
+
+  /**
+   * Decrement the reference count of this registry. The index is closed when the count drops to 0.
+   *
+   * @throws IOException
+   */
+  public void decRef() throws IOException {
+    reader.decRef();
+    if (reader.getRefCount() == 0) {
+      index.close();
+    }
+  }
+
+  /**
+   * @return the current reference count
+   */
+  public int getRefCount() {
+    return reader.getRefCount();
   }
 
   public TypeaheadResult typeahead(final String q) throws IOException {
+    return typeahead(q, false);
+  }
+
+  /**
+   * Search identifiers matching the given query.
+   *
+   * @param q the query
+   * @param fuzzy true to fill up a page that has less than HITS_PER_PAGE results with identifiers starting with
+   * something close to the query (see FuzzyMatcher)
+   * @return the first page of identifiers found
+   * @throws IOException
+   */
+  public TypeaheadResult typeahead(final String q, final boolean fuzzy) throws IOException {
     long start = System.nanoTime();
 
+    Query query = buildQuery(q);
     TopScoreDocCollector collector = TopScoreDocCollector.create(HITS_PER_PAGE, true);
-    searcher.search(new FilteredQuery(buildQuery(q), createDuplicateFilter()), collector);
+    searcher.search(query, collector);
 
-    List<String> result = new ArrayList<String>();
+    List<String> values = enumNames(q);
+    List<String> result = new ArrayList<String>(values.subList(0, Math.min(values.size(), HITS_PER_PAGE)));
     ScoreDoc[] docs = collector.topDocs().scoreDocs;
-    for (int i = 0; i < docs.length; i++) {
-      Document firstDoc = searcher.doc(docs[i].doc);
-      result.add(firstDoc.get("name"));
+    for (int i = 0; i < docs.length && result.size() < HITS_PER_PAGE; i++) {
+      Document doc = searcher.doc(docs[i].doc);
+      result.add(doc.get("name"));
+    }
+
+    int total = values.size() + collector.getTotalHits();
+    if (fuzzy && result.size() < HITS_PER_PAGE) {
+      List<String> similar = fuzzy(q, HITS_PER_PAGE - result.size(), result);
+      result.addAll(similar);
+      total += similar.size();
     }
 
     return new TypeaheadResult(
         result.toArray(new String[0]),
         System.nanoTime() - start,
         result.size(),
-        collector.getTotalHits());
+        total);
   }
 
-  private DuplicateFilter createDuplicateFilter() {
-    DuplicateFilter df = new DuplicateFilter("name");
-    df.setKeepMode(KeepMode.KM_USE_FIRST_OCCURRENCE);
-    return df;
+  /**
+   * Suggest identifiers with a word part starting with the given query.
+   *
+   * @param q the query
+   * @return the first suggestions
+   * @throws IOException
+   */
+  public TypeaheadResult suggest(final String q) throws IOException {
+    return suggest(q, HITS_PER_PAGE);
   }
 
-  public GLResult getGLInfo(final String gl) throws Exception {
-    Map<String, VersionInfo> versionInfos = new Hashtable<String, VersionInfo>();
-    for (String version : glVersions) {
-      versionInfos.put(version, new VersionInfo());
+  /**
+   * Suggest identifiers with a word part starting with the given query.
+   *
+   * @param q the query
+   * @param count the number of suggestions to return (limited to MAX_SUGGESTIONS)
+   * @return the first suggestions
+   * @throws IOException
+   */
+  public TypeaheadResult suggest(final String q, final int count) throws IOException {
+    return suggest(q, count, false);
+  }
+
+  /**
+   * Suggest identifiers with a word part starting with the given query.
+   *
+   * @param q the query
+   * @param count the number of suggestions to return (limited to MAX_SUGGESTIONS)
+   * @param fuzzy true to fill up the suggestions with identifiers starting with something close to the query when
+   * there are less than count (see FuzzyMatcher)
+   * @return the first suggestions
+   * @throws IOException
+   */
+  public TypeaheadResult suggest(final String q, final int count, final boolean fuzzy) throws IOException {
+    long start = System.nanoTime();
+
+    int[] candidates = typeaheadCache.candidates(q);
+    long loadStart = System.nanoTime();
+    List<String> values = enumNames(q);
+    int limit = Math.max(1, Math.min(count, MAX_SUGGESTIONS));
+    String[] result = new String[Math.min(values.size() + candidates.length, limit)];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = i < values.size() ? values.get(i) : suggester.name(candidates[i - values.size()]);
+    }
+    nameLoadTime.recordSince(loadStart);
+    suggestTime.recordSince(start);
+
+    int total = values.size() + candidates.length;
+    if (fuzzy && result.length < limit) {
+      List<String> similar = fuzzy(q, limit - result.length, Arrays.asList(result));
+      result = Arrays.copyOf(result, result.length + similar.size());
+      for (int i = 0; i < similar.size(); i++) {
+        result[result.length - similar.size() + i] = similar.get(i);
+      }
+      total += similar.size();
     }
 
-    // nothing found?
-    ScoreDoc[] required = findRequired(gl, searcher);
-    if (required.length == 0) {
-      return null; // FIXME Nothing found ... return better GLResult for this case
+    return new TypeaheadResult(
+        result,
+        System.nanoTime() - start,
+        result.length,
+        total);
+  }
+
+  /**
+   * @param q the query
+   * @return the names of the enums with the value the query is (f.i. "0x8CD6") or an empty list if the query is not
+   * a number
+   */
+  private List<String> enumNames(final String q) {
+    if (!EnumValueTable.isValue(q)) {
+      return Collections.emptyList();
     }
+    return enumValues.names(EnumValueTable.parse(q));
+  }
 
-    // the name is the same for all docs so we can extract it from the first entry
-    String glName = searcher.doc(required[0].doc).get("name");
+  /**
+   * Find identifiers starting with something close to the query.
+   *
+   * @param q the query
+   * @param count the maximum number of identifiers to return
+   * @param found the identifiers already found (these are not returned again)
+   * @return the identifiers found, closest first
+   */
+  private List<String> fuzzy(final String q, final int count, final List<String> found) {
+    long start = System.nanoTime();
+    Set<String> exclude = new HashSet<String>();
+    for (String name : found) {
+      exclude.add(name.toLowerCase());
+    }
+    List<String> result = fuzzyMatcher.match(q, count, exclude);
+    fuzzyTime.recordSince(start);
+    return result;
+  }
 
-    // now process them
-    for (int i = 0; i < required.length; i++) {
-      Document doc = searcher.doc(required[i].doc);
-      if ("gl".equals(doc.get("api"))) {
-        boolean supported = false;
-        for (String version : glVersions) {
-          if (!supported) {
-            supported = version.equals(doc.get("number"));
-          }
-          VersionInfo versionInfo = versionInfos.get(version);
-          if (versionInfo.compatibilityProfile == null) {
-            versionInfo.compatibilityProfile = 0;
-          }
-          if (supported) {
-            versionInfo.compatibilityProfile++;
-          }
-          if (glCoreVersions.contains(version)) {
-            if (versionInfo.coreProfile == null) {
-              versionInfo.coreProfile = 0;
-            }
-            if (supported) {
-              versionInfo.coreProfile++;
-            }
-          }
-        }
-      } else if (doc.get("api").startsWith("gles1")) {
-        boolean supported = false;
-        for (String version : glES1Versions) {
-          if (!supported) {
-            supported = version.equals(doc.get("number"));
-          }
-          VersionInfo versionInfo = versionInfos.get(version);
-          if (versionInfo.esProfile == null) {
-            versionInfo.esProfile = 0;
-          }
-          if (supported) {
-            versionInfo.esProfile++;
-          }
-        }
-      } else if (doc.get("api").startsWith("gles2")) {
-        boolean supported = false;
-        for (String version : glES2Versions) {
-          if (!supported) {
-            supported = version.equals(doc.get("number"));
-          }
-          VersionInfo versionInfo = versionInfos.get(version);
-          if (versionInfo.esProfile == null) {
-            versionInfo.esProfile = 0;
-          }
-          if (supported) {
-            versionInfo.esProfile++;
-          }
-        }
+  /**
+   * @return the number of suggest() calls answered directly from the typeahead cache
+   */
+  public long getTypeaheadCacheHits() {
+    return typeaheadCache.getHits();
+  }
+
+  /**
+   * @return the number of suggest() calls answered by narrowing the cached result of a shorter query
+   */
+  public long getTypeaheadCacheNarrowed() {
+    return typeaheadCache.getNarrowed();
+  }
+
+  /**
+   * @return the number of suggest() calls that had to search all identifiers
+   */
+  public long getTypeaheadCacheMisses() {
+    return typeaheadCache.getMisses();
+  }
+
+  /**
+   * @return the time spent in the phases of suggest() by phase name: the typeahead cache lookup ("cache_lookup"),
+   * narrowing the candidates of a cached prefix ("narrow") or searching the suggester ("candidate_search") when the
+   * query is not cached, loading the names of the candidates ("name_load"), the whole suggest() ("suggest") and the
+   * fuzzy fallback ("fuzzy")
+   */
+  public Map<String, LatencyHistogram> getPhaseTimes() {
+    Map<String, LatencyHistogram> result = new LinkedHashMap<String, LatencyHistogram>();
+    result.put("cache_lookup", typeaheadCache.getLookupTime());
+    result.put("narrow", typeaheadCache.getNarrowTime());
+    result.put("candidate_search", typeaheadCache.getSearchTime());
+    result.put("name_load", nameLoadTime);
+    result.put("suggest", suggestTime);
+    result.put("fuzzy", fuzzyTime);
+    return result;
+  }
+
+  public GLResult getGLInfo(final String gl) throws Exception {
+    int ordinal = matrix.ordinal(gl);
+    if (ordinal == -1) {
+      ordinal = extensions.extensionIdentifier(gl);
+      if (ordinal == -1) {
+        return null; // FIXME Nothing found ... return better GLResult for this case
       }
     }
+    return getGLInfo(ordinal);
+  }
 
-    // now correct what we've got so far for the removed features
-    ScoreDoc[] removed = findRemoved(gl, searcher);
-    for (int i = 0; i < removed.length; i++) {
-      Document doc = searcher.doc(removed[i].doc);
-      if ("gl".equals(doc.get("api"))) {
-        boolean removedVersion = false;
-        for (String version : glVersions) {
-          if (!removedVersion) {
-            removedVersion = version.equals(doc.get("number"));
-          }
-          if (removedVersion) {
-            VersionInfo versionInfo = versionInfos.get(version);
-            if (versionInfo.coreProfile != null) {
-              versionInfo.coreProfile--;
-            }
-          }
-        }
-      } else if (doc.get("api").startsWith("gles1")) {
-        boolean removedVersion = false;
-        for (String version : glES1Versions) {
-          if (!removedVersion) {
-            removedVersion = version.equals(doc.get("number"));
-          }
-          if (removedVersion) {
-            VersionInfo versionInfo = versionInfos.get(version);
-            if (versionInfo.esProfile != null) {
-              versionInfo.esProfile--;
-            }
-          }
-        }
-      } else if (doc.get("api").startsWith("gles2")) {
-        boolean removedVersion = false;
-        for (String version : glES2Versions) {
-          if (!removedVersion) {
-            removedVersion = version.equals(doc.get("number"));
-          }
-          if (removedVersion) {
-            VersionInfo versionInfo = versionInfos.get(version);
-            if (versionInfo.esProfile != null) {
-              versionInfo.esProfile--;
-            }
-          }
-        }
-      }
+  /**
+   * @param ordinal the ordinal of an identifier, from getOrdinalCount() on the ordinal of an identifier only defined
+   * by extensions as returned by SupportAggregator.add()
+   * @return the GLResult for the identifier
+   */
+  public GLResult getGLInfo(final int ordinal) {
+    if (ordinal >= matrix.size()) {
+      // identifiers only defined by extensions are not supported by any version
+      long[] none = new long[matrix.rowCount()];
+      return related(ordinal, matrix.result(
+          extensions.identifierName(ordinal), extensions.extensionNames(ordinal), none, none));
+    }
+    return related(ordinal, matrix.result(ordinal, extensions.extensionNames(ordinal)));
+  }
+
+  /**
+   * Add the aliases, the vector equivalents and the combined availability of the aliases to the result.
+   */
+  private GLResult related(final int ordinal, final GLResult result) {
+    result.setRelated(aliases.aliases(ordinal), aliases.vecequivs(ordinal), aliases.combined(ordinal));
+    return result;
+  }
+
+  /**
+   * @param name the extension name (case insensitive)
+   * @return the APIs, commands and enums of the extension or null if there is no such extension
+   */
+  public ExtensionResult getExtension(final String name) {
+    int extension = extensions.extension(name);
+    if (extension == -1) {
+      return null;
     }
+    return extensions.result(extension);
+  }
 
-    return new GLResult(glName, glVersions, versionInfos);
+  /**
+   * @param value the value, hexadecimal (0x...) or decimal
+   * @return the enums with the value or null if there is no enum with this value
+   * @throws NumberFormatException if the value is not a number
+   */
+  public EnumValueResult getEnumValue(final String value) {
+    return enumValues.result(EnumValueTable.parse(value));
+  }
+
+  /**
+   * @param gl the command (case insensitive)
+   * @return the return type and the parameters of the command or null if there is no such command
+   */
+  public SignatureResult getSignature(final String gl) {
+    int ordinal = matrix.ordinal(gl);
+    if (ordinal == -1) {
+      ordinal = extensions.extensionIdentifier(gl);
+    }
+    return signatures.result(ordinal);
+  }
+
+  /**
+   * @param name the group name (case insensitive)
+   * @return the enums of the group or null if there is no such group
+   */
+  public GroupResult getGroup(final String name) {
+    int group = groups.group(name);
+    if (group == -1) {
+      return null;
+    }
+    return groups.result(group);
+  }
+
+  /**
+   * @param gl the enum (case insensitive)
+   * @return the groups containing the enum or null if there is no such identifier
+   */
+  public GroupsResult getGroups(final String gl) {
+    int ordinal = matrix.ordinal(gl);
+    if (ordinal == -1) {
+      ordinal = extensions.extensionIdentifier(gl);
+    }
+    if (ordinal == -1) {
+      return null;
+    }
+    return groups.groupsResult(ordinal);
+  }
+
+  /**
+   * @param gl the identifier (case insensitive)
+   * @return the ordinal of the identifier or -1 if it is unknown
+   */
+  public int getOrdinal(final String gl) {
+    return matrix.ordinal(gl);
+  }
+
+  /**
+   * @return the number of ordinals, all ordinals are in the range [0, getOrdinalCount())
+   */
+  public int getOrdinalCount() {
+    return matrix.size();
+  }
+
+  /**
+   * @return the number of extensions
+   */
+  public int getExtensionCount() {
+    return extensions.size();
+  }
+
+  /**
+   * Evaluate a set expression like "(gl:3.3:core - gles2:2.0) and commands". See SetExpression for the syntax and
+   * getQuerySets() for the sets available.
+   *
+   * @param expression the expression
+   * @return the identifiers in the resulting set
+   * @throws IllegalArgumentException if the expression is invalid
+   * @throws IOException
+   */
+  public IdentifierSet query(final String expression) throws IOException {
+    return new IdentifierSet(SetExpression.evaluate(expression, identifierSets), matrix);
+  }
+
+  /**
+   * Find the commands and enums added and removed between two versions of an api.
+   *
+   * @param api the api ("gl", "gles1" or "gles2")
+   * @param profile "core" for the OpenGL core profile, anything else (or null) for the compatibility profile
+   * @param from the older version
+   * @param to the newer version
+   * @return the DiffResult
+   * @throws IllegalArgumentException if the api doesn't have one of the versions
+   * @throws IOException
+   */
+  public DiffResult diff(final String api, final String profile, final String from, final String to)
+      throws IOException {
+    boolean core = "core".equalsIgnoreCase(profile);
+    WAH8DocIdSet fromSet = identifierSets.get(api, from, core);
+    if (fromSet == null) {
+      throw new IllegalArgumentException("unknown version '" + api + ":" + from + "'");
+    }
+    WAH8DocIdSet toSet = identifierSets.get(api, to, core);
+    if (toSet == null) {
+      throw new IllegalArgumentException("unknown version '" + api + ":" + to + "'");
+    }
+    WAH8DocIdSet added = IdentifierSets.difference(toSet, fromSet);
+    WAH8DocIdSet removed = IdentifierSets.difference(fromSet, toSet);
+    WAH8DocIdSet commands = identifierSets.get("commands");
+    WAH8DocIdSet enums = identifierSets.get("enums");
+    return new DiffResult(
+        api,
+        core ? "core" : "compatibility",
+        from,
+        to,
+        names(IdentifierSets.intersect(added, commands)),
+        names(IdentifierSets.intersect(added, enums)),
+        names(IdentifierSets.intersect(removed, commands)),
+        names(IdentifierSets.intersect(removed, enums)));
+  }
+
+  /**
+   * @return the names of all sets query() expressions can refer to
+   */
+  public List<String> getQuerySets() {
+    return identifierSets.names();
+  }
+
+  /**
+   * @return a new SupportAggregator to combine the support of several identifiers
+   */
+  public SupportAggregator newSupportAggregator() {
+    return new SupportAggregator(matrix, extensions);
+  }
+
+  /**
+   * @return a new SourceScanner to find the identifiers used in source code
+   */
+  public SourceScanner newSourceScanner() {
+    return new SourceScanner(matrix);
+  }
+
+  /**
+   * @return the checksum of the gl.xml this registry was built from
+   */
+  public String getChecksum() {
+    return checksum;
   }
 
   private Query buildQuery(final String q) {
@@ -280,75 +725,188 @@ public class Registry {
     return phraseQuery;
   }
 
-  private ScoreDoc[] findRequired(final String gl, final IndexSearcher searcher) throws IOException {
-    BooleanQuery anyExistingType = new BooleanQuery();
-    anyExistingType.add(new TermQuery(new Term("type", "command")), Occur.SHOULD);
-    anyExistingType.add(new TermQuery(new Term("type", "enum")), Occur.SHOULD);
+  /**
+   * The suggester gets all identifiers in registry order. Shorter identifiers are weighted higher since they are the
+   * closest completion of the prefix typed so far.
+   */
+  private Suggester createSuggester() throws IOException {
+    List<String> identifiers = identifierNames();
+    int[] weights = new int[identifiers.size()];
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = -identifiers.get(i).length();
+    }
+    return new Suggester(identifiers, weights);
+  }
 
-    BooleanQuery query = new BooleanQuery();
-    query.add(new TermQuery(new Term("byName", gl.toLowerCase())), Occur.MUST);
-    query.add(anyExistingType, Occur.MUST);
+  /**
+   * @return the names of all identifiers, those of features first followed by those only defined by extensions
+   */
+  List<String> allIdentifierNames() {
+    List<String> identifiers = identifierNames();
+    for (int ordinal = matrix.size(); ordinal < extensions.identifierCount(); ordinal++) {
+      identifiers.add(extensions.identifierName(ordinal));
+    }
+    return identifiers;
+  }
 
-    return executeQuery(searcher, query);
+  /**
+   * @return the names of all identifiers in registry order
+   */
+  private List<String> identifierNames() {
+    List<String> identifiers = new ArrayList<String>();
+    for (int ordinal = 0; ordinal < matrix.size(); ordinal++) {
+      if (matrix.name(ordinal) != null) {
+        identifiers.add(matrix.name(ordinal));
+      }
+    }
+    return identifiers;
   }
 
-  private ScoreDoc[] findRemoved(final String gl, final IndexSearcher searcher) throws IOException {
-    BooleanQuery anyExistingType = new BooleanQuery();
-    anyExistingType.add(new TermQuery(new Term("type", "command-removed")), Occur.SHOULD);
-    anyExistingType.add(new TermQuery(new Term("type", "enum-removed")), Occur.SHOULD);
+  private void readVersions() throws IOException {
+    DirectoryReader reader = DirectoryReader.open(index);
+    try {
+      Fields fields = MultiFields.getFields(reader);
+      if (fields != null) {
+        Terms terms = fields.terms("api-number");
+        if (terms != null) {
+          TermsEnum termsEnum = terms.iterator(null);
+          BytesRef text;
+          while ((text = termsEnum.next()) != null) {
+            String apiNumber = text.utf8ToString();
+            if (apiNumber.startsWith("gl:")) {
+              String api = apiNumber.substring(3, apiNumber.length());
+              glVersions.add(api);
+              if (api.startsWith("3.3") || api.startsWith("3.2") || api.startsWith("4.")) {
+                glCoreVersions.add(api);
+              }
+            } else if (apiNumber.startsWith("gles1")) {
+              glES1Versions.add(apiNumber.substring(6, apiNumber.length()));
+            } else if (apiNumber.startsWith("gles2")) {
+              glES2Versions.add(apiNumber.substring(6, apiNumber.length()));
+            } else {
+              otherApiNumbers.add(apiNumber);
+            }
+          }
+        }
+      }
+    } finally {
+      reader.close();
+    }
+  }
 
-    BooleanQuery query = new BooleanQuery();
-    query.add(new TermQuery(new Term("byName", gl.toLowerCase())), Occur.MUST);
-    query.add(anyExistingType, Occur.MUST);
+  /**
+   * Write the index of this registry as a compiled registry.
+   *
+   * @param out the stream to write to
+   * @throws IOException
+   */
+  void writeArchive(final OutputStream out) throws IOException {
+    RegistryArchive.write(out, checksum, index, versionSets());
+  }
 
-    return executeQuery(searcher, query);
+  /**
+   * @return the number of distinct terms in the name field
+   * @throws IOException
+   */
+  long termCount() throws IOException {
+    Terms terms = reader.terms("name");
+    return terms == null ? 0 : terms.size();
   }
 
-  private ScoreDoc[] executeQuery(final IndexSearcher searcher, BooleanQuery query) throws IOException {
-    TopScoreDocCollector collector = TopScoreDocCollector.create(HITS_PER_PAGE, true);
-    searcher.search(query, collector);
-    return collector.topDocs().scoreDocs;
+  /**
+   * @return the size of all index files in bytes
+   * @throws IOException
+   */
+  public long indexSizeInBytes() throws IOException {
+    long result = 0;
+    for (String file : index.listAll()) {
+      result += index.fileLength(file);
+    }
+    return result;
   }
 
-  private IndexWriter createIndexWriter() throws IOException {
-    return new IndexWriter(index, indexWriterConfig());
+  private static RegistryArchive openCompiledRegistry(final GLAnalyzer.Mode analyzerMode) throws IOException {
+    if (analyzerMode != DEFAULT_ANALYZER_MODE) {
+      return null;
+    }
+    return RegistryArchive.open(Registry.class.getResourceAsStream(COMPILED_REGISTRY));
   }
 
-  private IndexWriterConfig indexWriterConfig() {
-    return new IndexWriterConfig(Version.LUCENE_44, ANALYZER);
+  private List<String> names(final WAH8DocIdSet ordinals) throws IOException {
+    List<String> result = new ArrayList<String>();
+    new IdentifierSet(ordinals, matrix).names(0, Integer.MAX_VALUE, result);
+    return result;
   }
 
-  /**
-   * A VersionInfo represents a single GL-Version and keeps information which
-   * api supports it.
-   */
-  private static class VersionInfo {
-    // both could be null to represent not available for this version
-    private Integer compatibilityProfile;
-    private Integer coreProfile;
-    private Integer esProfile;
+  private Map<String, Set<String>> versionSets() {
+    Map<String, Set<String>> result = new LinkedHashMap<String, Set<String>>();
+    result.put("gl", glVersions);
+    result.put("gl-core", glCoreVersions);
+    result.put("gles1", glES1Versions);
+    result.put("gles2", glES2Versions);
+    result.put("other", otherApiNumbers);
+    return result;
+  }
+
+  private void writeSnapshot(final RegistrySnapshot snapshot) {
+    try {
+      snapshot.write(index, versionSets());
+      System.out.println("Registry snapshot written to: " + snapshot.getDirectory());
+    } catch (IOException e) {
+      // not being able to write the snapshot only costs us the faster start next time
+      e.printStackTrace();
+    }
+  }
 
-    public VersionInfo() {
-      this.compatibilityProfile = null;
-      this.coreProfile = null;
-      this.esProfile = null;
+  private static byte[] read(final InputStream inputStream) throws IOException {
+    try {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int length = 0;
+      while ((length = inputStream.read(buffer)) != -1) {
+        output.write(buffer, 0, length);
+      }
+      return output.toByteArray();
+    } finally {
+      inputStream.close();
     }
   }
 
+  private IndexWriter createIndexWriter() throws IOException {
+    return new IndexWriter(index, indexWriterConfig());
+  }
+
+  private IndexWriterConfig indexWriterConfig() {
+    return new IndexWriterConfig(Version.LUCENE_44, analyzer);
+  }
+
   /**
    * The GLResult is returned for the getGLInfo() call.
    */
   public static class GLResult {
     private final String glName;
     private final List<String> versions;
-    private final List<ApiWithSupportedVersions> list = new ArrayList<ApiWithSupportedVersions>();
+    private final List<ApiWithSupportedVersions> list;
+    private final List<String> extensions;
 
-    public GLResult(final String glName, final Set<String> glVersions, final Map<String, VersionInfo> versionInfos) {
+    // null unless the identifier is related to other commands, gson leaves them out then
+    private List<String> aliases;
+    private List<String> vecequiv;
+    private Combined combined;
+
+    public GLResult(final String glName, final List<String> versions, final ApiWithSupportedVersions ... apis) {
+      this(glName, versions, null, apis);
+    }
+
+    public GLResult(
+        final String glName,
+        final List<String> versions,
+        final List<String> extensions,
+        final ApiWithSupportedVersions ... apis) {
       this.glName = glName;
-      this.versions = new ArrayList<String>(glVersions);
-      list.add(new ApiWithSupportedVersions("OpenGL", extractCompatibility(versionInfos)));
-      list.add(new ApiWithSupportedVersions("OpenGL Core Profile", extractCore(versionInfos)));
-      list.add(new ApiWithSupportedVersions("OpenGL ES", extractES(versionInfos)));
+      this.versions = versions;
+      this.list = Arrays.asList(apis);
+      this.extensions = extensions;
     }
 
     /**
@@ -391,41 +949,105 @@ public class Registry {
       return Collections.unmodifiableList(list);
     }
 
-    private List<String> extractCompatibility(final Map<String, VersionInfo> versionInfos) {
-      List<String> result = new ArrayList<String>();
-      for (String version : versions) {
-        VersionInfo versionInfo = versionInfos.get(version);
-        result.add(toString(versionInfo.compatibilityProfile));
-      }
-      return result;
+    List<String> getExtensions() {
+      return extensions;
     }
 
-    private List<String> extractCore(final Map<String, VersionInfo> versionInfos) {
-      List<String> result = new ArrayList<String>();
-      for (String version : versions) {
-        VersionInfo versionInfo = versionInfos.get(version);
-        result.add(toString(versionInfo.coreProfile));
+    void setRelated(final List<String> aliases, final List<String> vecequiv, final Combined combined) {
+      this.aliases = aliases;
+      this.vecequiv = vecequiv;
+      this.combined = combined;
+    }
+
+    /**
+     * @return the other names of the command in registry order or null
+     */
+    List<String> getAliases() {
+      return aliases;
+    }
+
+    /**
+     * @return the vector equivalents of the command (glColor3fv for glColor3f and the other way around) or null
+     */
+    List<String> getVecequiv() {
+      return vecequiv;
+    }
+
+    /**
+     * @return the availability of the command under any of its names or null if it has no aliases
+     */
+    Combined getCombined() {
+      return combined;
+    }
+
+    /**
+     * The availability of a command and all of its aliases: the first version of every API supporting any of them
+     * and all extensions providing any of them.
+     */
+    public static class Combined {
+      private final List<Availability> versions;
+      private final List<ExtensionAvailability> extensions;
+
+      public Combined(final List<Availability> versions, final List<ExtensionAvailability> extensions) {
+        this.versions = versions;
+        this.extensions = extensions;
+      }
+
+      List<Availability> getVersions() {
+        return versions;
+      }
+
+      List<ExtensionAvailability> getExtensions() {
+        return extensions;
       }
-      return result;
     }
 
-    private List<String> extractES(final Map<String, VersionInfo> versionInfos) {
-      List<String> result = new ArrayList<String>();
-      for (String version : versions) {
-        VersionInfo versionInfo = versionInfos.get(version);
-        result.add(toString(versionInfo.esProfile));
+    /**
+     * The first version of an API supporting the command and the name it is supported by.
+     */
+    public static class Availability {
+      private final String api;
+      private final String since;
+      private final String via;
+
+      public Availability(final String api, final String since, final String via) {
+        this.api = api;
+        this.since = since;
+        this.via = via;
+      }
+
+      String getApi() {
+        return api;
+      }
+
+      String getSince() {
+        return since;
+      }
+
+      String getVia() {
+        return via;
       }
-      return result;
     }
 
-    private String toString(final Integer supported) {
-      if (supported == null) {
-        return " ";
+    /**
+     * An extension providing the command and the name it is provided by.
+     */
+    public static class ExtensionAvailability {
+      private final String name;
+      private final String via;
+
+      public ExtensionAvailability(final String name, final String via) {
+        this.name = name;
+        this.via = via;
       }
-      if (supported >= 1) {
-        return "Y";
+
+      String getName() {
+        return name;
+      }
+
+      String getVia() {
+        return via;
       }
-      return "N";
     }
 
     /**
@@ -433,12 +1055,12 @@ public class Registry {
      * supported list contains the exact same number as the header list.
      */
     public static class ApiWithSupportedVersions {
-      private String api;
-      private List<String> supported = new ArrayList<String>();
+      private final String api;
+      private final List<String> supported;
 
       public ApiWithSupportedVersions(final String label, final List<String> supported) {
         this.api = label;
-        this.supported = new ArrayList<String>(supported);
+        this.supported = supported;
       }
 
       public void toHTML(final StringBuilder result) {
@@ -461,6 +1083,340 @@ public class Registry {
     }
   }
 
+  /**
+   * The ExtensionResult is returned for the getExtension() call.
+   */
+  public static class ExtensionResult {
+    private final String name;
+    private final List<String> supported;
+    private final List<String> commands;
+    private final List<String> enums;
+
+    public ExtensionResult(
+        final String name,
+        final List<String> supported,
+        final List<String> commands,
+        final List<String> enums) {
+      this.name = name;
+      this.supported = supported;
+      this.commands = commands;
+      this.enums = enums;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public List<String> getSupported() {
+      return supported;
+    }
+
+    public List<String> getCommands() {
+      return commands;
+    }
+
+    public List<String> getEnums() {
+      return enums;
+    }
+  }
+
+  /**
+   * The GroupResult is returned for the getGroup() call.
+   */
+  public static class GroupResult {
+    private final String name;
+    private final List<String> enums;
+
+    public GroupResult(final String name, final List<String> enums) {
+      this.name = name;
+      this.enums = enums;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return the enums of the group in registry order
+     */
+    public List<String> getEnums() {
+      return enums;
+    }
+  }
+
+  /**
+   * The GroupsResult is returned for the getGroups() call.
+   */
+  public static class GroupsResult {
+    private final String name;
+    private final List<String> groups;
+
+    public GroupsResult(final String name, final List<String> groups) {
+      this.name = name;
+      this.groups = groups;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return the groups containing the enum in name order
+     */
+    public List<String> getGroups() {
+      return groups;
+    }
+  }
+
+  /**
+   * The EnumValueResult is returned for the getEnumValue() call.
+   */
+  public static class EnumValueResult {
+    private final String value;
+    private final List<Definition> enums;
+
+    public EnumValueResult(final String value, final List<Definition> enums) {
+      this.value = value;
+      this.enums = enums;
+    }
+
+    /**
+     * @return the value as written in the registry
+     */
+    public String getValue() {
+      return value;
+    }
+
+    /**
+     * @return all enums with the value in registry order
+     */
+    public List<Definition> getEnums() {
+      return enums;
+    }
+
+    /**
+     * An enum with the value.
+     */
+    public static class Definition {
+      private final String name;
+      private final String group;
+      private final String type;
+
+      public Definition(final String name, final String group, final String type) {
+        this.name = name;
+        this.group = group;
+        this.type = type;
+      }
+
+      public String getName() {
+        return name;
+      }
+
+      /**
+       * @return the group of the enums block or null
+       */
+      public String getGroup() {
+        return group;
+      }
+
+      /**
+       * @return the type of the enum ("u", "ull") or of the enums block ("bitmask") or null
+       */
+      public String getType() {
+        return type;
+      }
+    }
+  }
+
+  /**
+   * The SignatureResult is returned for the getSignature() call.
+   */
+  public static class SignatureResult {
+    private final String name;
+    private final String returnType;
+    private final String returnGroup;
+    private final List<Parameter> parameters;
+    private final String declaration;
+
+    public SignatureResult(
+        final String name,
+        final String returnType,
+        final String returnGroup,
+        final List<Parameter> parameters) {
+      this.name = name;
+      this.returnType = returnType;
+      this.returnGroup = returnGroup;
+      this.parameters = parameters;
+      this.declaration = declaration(name, returnType, parameters);
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getReturnType() {
+      return returnType;
+    }
+
+    /**
+     * @return the enum group of the return value or null
+     */
+    public String getReturnGroup() {
+      return returnGroup;
+    }
+
+    public List<Parameter> getParameters() {
+      return parameters;
+    }
+
+    /**
+     * @return the C declaration, f.i. "const GLubyte *glGetString(GLenum name)"
+     */
+    public String getDeclaration() {
+      return declaration;
+    }
+
+    private static String declaration(final String name, final String returnType, final List<Parameter> parameters) {
+      StringBuilder result = new StringBuilder();
+      declare(result, returnType, name);
+      result.append('(');
+      for (int i = 0; i < parameters.size(); i++) {
+        if (i > 0) {
+          result.append(", ");
+        }
+        declare(result, parameters.get(i).getType(), parameters.get(i).getName());
+      }
+      if (parameters.isEmpty()) {
+        result.append("void");
+      }
+      return result.append(')').toString();
+    }
+
+    private static void declare(final StringBuilder result, final String type, final String name) {
+      result.append(type);
+      if (!type.endsWith("*")) {
+        result.append(' ');
+      }
+      result.append(name);
+    }
+
+    /**
+     * A single parameter of a command.
+     */
+    public static class Parameter {
+      private final String name;
+      private final String type;
+      private final String ptype;
+      private final String group;
+      private final String len;
+
+      public Parameter(final String name, final String type, final String ptype, final String group, final String len) {
+        this.name = name;
+        this.type = type;
+        this.ptype = ptype;
+        this.group = group;
+        this.len = len;
+      }
+
+      public String getName() {
+        return name;
+      }
+
+      /**
+       * @return the C type, f.i. "const GLchar *"
+       */
+      public String getType() {
+        return type;
+      }
+
+      /**
+       * @return the GL type the C type is made of, f.i. "GLchar" (null for void)
+       */
+      public String getPtype() {
+        return ptype;
+      }
+
+      /**
+       * @return the enum group of the parameter or null
+       */
+      public String getGroup() {
+        return group;
+      }
+
+      /**
+       * @return the length of an array parameter or null, f.i. "count" or "COMPSIZE(name)"
+       */
+      public String getLen() {
+        return len;
+      }
+    }
+  }
+
+  /**
+   * The DiffResult is returned for the diff() call.
+   */
+  public static class DiffResult {
+    private final String api;
+    private final String profile;
+    private final String from;
+    private final String to;
+    private final List<String> addedCommands;
+    private final List<String> addedEnums;
+    private final List<String> removedCommands;
+    private final List<String> removedEnums;
+
+    public DiffResult(
+        final String api,
+        final String profile,
+        final String from,
+        final String to,
+        final List<String> addedCommands,
+        final List<String> addedEnums,
+        final List<String> removedCommands,
+        final List<String> removedEnums) {
+      this.api = api;
+      this.profile = profile;
+      this.from = from;
+      this.to = to;
+      this.addedCommands = addedCommands;
+      this.addedEnums = addedEnums;
+      this.removedCommands = removedCommands;
+      this.removedEnums = removedEnums;
+    }
+
+    public String getApi() {
+      return api;
+    }
+
+    public String getProfile() {
+      return profile;
+    }
+
+    public String getFrom() {
+      return from;
+    }
+
+    public String getTo() {
+      return to;
+    }
+
+    public List<String> getAddedCommands() {
+      return addedCommands;
+    }
+
+    public List<String> getAddedEnums() {
+      return addedEnums;
+    }
+
+    public List<String> getRemovedCommands() {
+      return removedCommands;
+    }
+
+    public List<String> getRemovedEnums() {
+      return removedEnums;
+    }
+  }
+
   /**
    * The Resultset for the Typeahead call.
    * 
@@ -470,18 +1426,41 @@ public class Registry {
     private static final String MESSAGE_DIRECT_HIT = "Showing result ({0}ms)";
     private static final String MESSAGE_SINGLE_PAGE = "Showing {0} results ({1}ms)";
     private static final String MESSAGE_MORE = "Showing first {0} results out of {1} ({2}ms)";
+
+    /**
+     * DecimalFormat is not thread safe and expensive to create so every thread keeps its own.
+     */
+    private static final ThreadLocal<DecimalFormat> MILLISECONDS = new ThreadLocal<DecimalFormat>() {
+      @Override
+      protected DecimalFormat initialValue() {
+        DecimalFormat decimalFormat = (DecimalFormat) NumberFormat.getNumberInstance(Locale.ENGLISH);
+        decimalFormat.applyPattern("######.###");
+        return decimalFormat;
+      }
+    };
+
     private final String[] result;
     private final String stats;
 
+    /**
+     * The number of identifiers found (not part of the JSON, the stats already mention it).
+     */
+    private final transient int total;
+
     public TypeaheadResult(final String[] result, final long time, final Integer actual, final Integer total) {
       this.result = result;
       this.stats = getMessage(time, actual, total);
+      this.total = total;
     }
 
     public String[] getResult() {
       return result;
     }
 
+    public int getTotal() {
+      return total;
+    }
+
     public String getStats() {
       return stats;
     }
@@ -496,10 +1475,7 @@ public class Registry {
     }
 
     private String toFloatString(final float value) {
-      NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.ENGLISH);
-      DecimalFormat decimalFormat = (DecimalFormat) numberFormat;
-      decimalFormat.applyPattern("######.###");
-      return decimalFormat.format(value);
+      return MILLISECONDS.get().format(value);
     }
   }
 }
@@ -0,0 +1,195 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+
+/**
+ * A RegistryArchive is the compiled form of the registry: the already built index together with the GL versions in
+ * a single file that can be read sequentially. It is created at build time by the RegistryCompiler and bundled with
+ * the application so that the gl.xml does not need to be parsed at runtime.
+ *
+ * <pre>
+ * int    magic
+ * int    format version (Registry.INDEX_FORMAT_VERSION)
+ * UTF    checksum of the gl.xml the archive was compiled from
+ * int    number of version sets
+ *        UTF name, int count, count * UTF version
+ * int    number of index files
+ *        UTF name, long length, length * byte
+ * </pre>
+ *
+ * @author void
+ */
+class RegistryArchive {
+  private static final int MAGIC = 0x49474c52; // IGLR
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final DataInputStream in;
+  private final String checksum;
+
+  private RegistryArchive(final DataInputStream in, final String checksum) {
+    this.in = in;
+    this.checksum = checksum;
+  }
+
+  /**
+   * Open the archive and read its header.
+   *
+   * @param stream the stream to read the archive from (might be null)
+   * @return the archive or null when the stream is null or the archive has a different format version
+   * @throws IOException
+   */
+  static RegistryArchive open(final InputStream stream) throws IOException {
+    if (stream == null) {
+      return null;
+    }
+    DataInputStream in = new DataInputStream(new BufferedInputStream(stream, BUFFER_SIZE));
+    if (in.readInt() != MAGIC) {
+      in.close();
+      throw new IOException("not a registry archive");
+    }
+    int formatVersion = in.readInt();
+    if (formatVersion != Registry.INDEX_FORMAT_VERSION) {
+      System.out.println(
+          "Ignoring registry archive with format version " + formatVersion +
+          " (expected " + Registry.INDEX_FORMAT_VERSION + ")");
+      in.close();
+      return null;
+    }
+    return new RegistryArchive(in, in.readUTF());
+  }
+
+  /**
+   * @return the checksum of the gl.xml this archive was compiled from
+   */
+  String getChecksum() {
+    return checksum;
+  }
+
+  /**
+   * Read the rest of the archive. The index files are copied into the given directory and the versions are added
+   * to the given sets. The archive is closed afterwards.
+   *
+   * @param index the directory to copy the index files to
+   * @param versions the version sets to fill keyed by name
+   * @throws IOException
+   */
+  void read(final Directory index, final Map<String, Set<String>> versions) throws IOException {
+    try {
+      int sets = in.readInt();
+      for (int i = 0; i < sets; i++) {
+        Set<String> target = versions.get(in.readUTF());
+        int count = in.readInt();
+        for (int j = 0; j < count; j++) {
+          String version = in.readUTF();
+          if (target != null) {
+            target.add(version);
+          }
+        }
+      }
+
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int files = in.readInt();
+      for (int i = 0; i < files; i++) {
+        IndexOutput out = index.createOutput(in.readUTF(), IOContext.DEFAULT);
+        try {
+          long remaining = in.readLong();
+          while (remaining > 0) {
+            int length = (int) Math.min(buffer.length, remaining);
+            in.readFully(buffer, 0, length);
+            out.writeBytes(buffer, length);
+            remaining -= length;
+          }
+        } finally {
+          out.close();
+        }
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Write an archive.
+   *
+   * @param stream the stream to write to
+   * @param checksum the checksum of the gl.xml the index was built from
+   * @param index the index to write
+   * @param versions the version sets keyed by name
+   * @throws IOException
+   */
+  static void write(
+      final OutputStream stream,
+      final String checksum,
+      final Directory index,
+      final Map<String, Set<String>> versions) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE));
+    out.writeInt(MAGIC);
+    out.writeInt(Registry.INDEX_FORMAT_VERSION);
+    out.writeUTF(checksum);
+
+    out.writeInt(versions.size());
+    for (Map.Entry<String, Set<String>> entry : versions.entrySet()) {
+      out.writeUTF(entry.getKey());
+      out.writeInt(entry.getValue().size());
+      for (String version : entry.getValue()) {
+        out.writeUTF(version);
+      }
+    }
+
+    byte[] buffer = new byte[BUFFER_SIZE];
+    String[] files = index.listAll();
+    out.writeInt(files.length);
+    for (String file : files) {
+      IndexInput input = index.openInput(file, IOContext.READONCE);
+      try {
+        long remaining = input.length();
+        out.writeUTF(file);
+        out.writeLong(remaining);
+        while (remaining > 0) {
+          int length = (int) Math.min(buffer.length, remaining);
+          input.readBytes(buffer, 0, length);
+          out.write(buffer, 0, length);
+          remaining -= length;
+        }
+      } finally {
+        input.close();
+      }
+    }
+    out.flush();
+  }
+
+  /**
+   * Calculate the checksum for the given registry XML data.
+   *
+   * @param registry the registry XML data
+   * @return the checksum as a hex string
+   */
+  static String checksum(final byte[] registry) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      digest.update(registry);
+      StringBuilder result = new StringBuilder();
+      for (byte b : digest.digest()) {
+        result.append(String.format("%02x", b & 0xff));
+      }
+      return result.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
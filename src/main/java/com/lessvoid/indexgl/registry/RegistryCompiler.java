@@ -0,0 +1,36 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Compiles the gl.xml into a RegistryArchive. This is called from the Maven build so that the archive is bundled
+ * with the application and the registry does not need to be parsed on start.
+ *
+ * @author void
+ */
+public class RegistryCompiler {
+
+  public static void main(final String[] args) throws Exception {
+    if (args.length != 1) {
+      System.err.println("usage: RegistryCompiler <output file>");
+      System.exit(1);
+    }
+
+    long now = System.nanoTime();
+    Registry registry = new Registry(null, Registry.DEFAULT_ANALYZER_MODE, null);
+
+    File output = new File(args[0]);
+    output.getParentFile().mkdirs();
+    OutputStream out = new FileOutputStream(output);
+    try {
+      registry.writeArchive(out);
+    } finally {
+      out.close();
+    }
+    System.out.println(
+        "Registry compiled to: " + output + " (" + output.length() + " bytes) in " +
+        (System.nanoTime() - now)/1000000000f + "sec");
+  }
+}
@@ -3,7 +3,11 @@ package com.lessvoid.indexgl.registry;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
@@ -12,12 +16,18 @@ import javax.xml.stream.XMLStreamReader;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.util.BytesRef;
 
 /**
- * This class parses the gl.xml.
+ * This class parses the gl.xml. It writes a single document for every identifier with the features (as "api:number")
+ * that require or remove it as doc values. After all identifiers a document for every extension is written with the
+ * APIs it supports and the commands and enums it requires followed by a document with the signature of every
+ * command, a document with the values of every enums block and a document with the enums of every group.
  */
 public class RegistryParser {
 
@@ -31,27 +41,199 @@ public class RegistryParser {
   public void process(final InputStream stream, final IndexWriter writer) throws Exception {
     XMLInputFactory factory = XMLInputFactory.newInstance();
     XMLStreamReader reader = factory.createXMLStreamReader(stream);
+    IdentifierCollector identifierCollector = new IdentifierCollector();
+    List<Extension> extensions = new ArrayList<Extension>();
+    List<Command> commands = new ArrayList<Command>();
+    List<EnumBlock> enumBlocks = new ArrayList<EnumBlock>();
+    List<Group> groups = new ArrayList<Group>();
 
     while (reader.hasNext()) {
       int event = reader.next();
 
       if (XMLStreamConstants.START_ELEMENT == event) {
         if ("feature".equals(reader.getLocalName())) {
-          parseFeature(reader, writer);
+          parseFeature(reader, identifierCollector);
+        } else if ("extension".equals(reader.getLocalName())) {
+          extensions.add(parseExtension(reader));
+        } else if ("command".equals(reader.getLocalName())) {
+          // features and extensions are parsed completely so this is a command of the commands element
+          commands.add(parseCommand(reader));
+        } else if ("enums".equals(reader.getLocalName())) {
+          enumBlocks.add(parseEnums(reader));
+        } else if ("group".equals(reader.getLocalName())) {
+          groups.add(parseGroup(reader));
         }
       }
     }
+
+    identifierCollector.writeDocs(writer);
+    for (Extension extension : extensions) {
+      extension.writeDoc(writer);
+    }
+    for (Command command : commands) {
+      command.writeDoc(writer);
+    }
+    for (EnumBlock enumBlock : enumBlocks) {
+      enumBlock.writeDoc(writer);
+    }
+    for (Group group : groups) {
+      group.writeDoc(writer);
+    }
+  }
+
+  private Group parseGroup(final XMLStreamReader reader) throws Exception {
+    Group group = new Group(reader.getAttributeValue(null, "name"));
+
+    while (reader.hasNext()) {
+      int event = reader.next();
+      switch (event) {
+        case XMLStreamConstants.END_ELEMENT:
+          if ("group".equals(reader.getLocalName())) {
+            return group;
+          }
+          break;
+        case XMLStreamConstants.START_ELEMENT:
+          if ("enum".equals(reader.getLocalName())) {
+            group.enums.add(reader.getAttributeValue(null, "name"));
+          }
+          break;
+      }
+    }
+    return group;
+  }
+
+  private EnumBlock parseEnums(final XMLStreamReader reader) throws Exception {
+    EnumBlock enumBlock = new EnumBlock(
+        reader.getAttributeValue(null, "namespace"),
+        reader.getAttributeValue(null, "group"),
+        reader.getAttributeValue(null, "type"));
+
+    while (reader.hasNext()) {
+      int event = reader.next();
+      switch (event) {
+        case XMLStreamConstants.END_ELEMENT:
+          if ("enums".equals(reader.getLocalName())) {
+            return enumBlock;
+          }
+          break;
+        case XMLStreamConstants.START_ELEMENT:
+          if ("enum".equals(reader.getLocalName()) && reader.getAttributeValue(null, "value") != null) {
+            enumBlock.names.add(reader.getAttributeValue(null, "name"));
+            enumBlock.values.add(reader.getAttributeValue(null, "value"));
+            enumBlock.types.add(reader.getAttributeValue(null, "type"));
+          }
+          break;
+      }
+    }
+    return enumBlock;
+  }
+
+  private Command parseCommand(final XMLStreamReader reader) throws Exception {
+    Command command = new Command();
+
+    while (reader.hasNext()) {
+      int event = reader.next();
+      switch (event) {
+        case XMLStreamConstants.END_ELEMENT:
+          if ("command".equals(reader.getLocalName())) {
+            return command;
+          }
+          break;
+        case XMLStreamConstants.START_ELEMENT:
+          if ("proto".equals(reader.getLocalName())) {
+            command.proto = parseDeclaration(reader, "proto");
+          } else if ("param".equals(reader.getLocalName())) {
+            command.params.add(parseDeclaration(reader, "param"));
+          } else if ("alias".equals(reader.getLocalName())) {
+            command.aliases.add(reader.getAttributeValue(null, "name"));
+          } else if ("vecequiv".equals(reader.getLocalName())) {
+            command.vecequivs.add(reader.getAttributeValue(null, "name"));
+          }
+          break;
+      }
+    }
+    return command;
+  }
+
+  /**
+   * Parse a proto or param element. All text except the name is the C type, f.i. "const GLchar *" for
+   * {@code <param>const <ptype>GLchar</ptype> *<name>name</name></param>}.
+   */
+  private Declaration parseDeclaration(final XMLStreamReader reader, final String tag) throws XMLStreamException {
+    Declaration declaration = new Declaration(
+        reader.getAttributeValue(null, "group"),
+        reader.getAttributeValue(null, "len"));
+    StringBuilder type = new StringBuilder();
+    StringBuilder ptype = new StringBuilder();
+    StringBuilder name = new StringBuilder();
+    String element = tag;
+
+    while (reader.hasNext()) {
+      int event = reader.next();
+      switch (event) {
+        case XMLStreamConstants.END_ELEMENT:
+          if (tag.equals(reader.getLocalName())) {
+            declaration.type = type.toString().trim().replaceAll("\\s+", " ");
+            declaration.ptype = ptype.toString();
+            declaration.name = name.toString();
+            return declaration;
+          }
+          element = tag;
+          break;
+        case XMLStreamConstants.START_ELEMENT:
+          element = reader.getLocalName();
+          break;
+        case XMLStreamConstants.CHARACTERS:
+          if ("name".equals(element)) {
+            name.append(reader.getText());
+          } else {
+            type.append(reader.getText());
+            if ("ptype".equals(element)) {
+              ptype.append(reader.getText());
+            }
+          }
+          break;
+      }
+    }
+    return declaration;
   }
 
-  private void parseFeature(final XMLStreamReader reader, final IndexWriter writer) throws Exception {
-    FeatureCollector featureCollector = new FeatureCollector(reader, writer);
+  private Extension parseExtension(final XMLStreamReader reader) throws Exception {
+    Extension extension = new Extension(
+        reader.getAttributeValue(null, "name"),
+        reader.getAttributeValue(null, "supported"));
+
+    while (reader.hasNext()) {
+      int event = reader.next();
+      switch (event) {
+        case XMLStreamConstants.END_ELEMENT:
+          if ("extension".equals(reader.getLocalName())) {
+            return extension;
+          }
+          break;
+        case XMLStreamConstants.START_ELEMENT:
+          if ("command".equals(reader.getLocalName())) {
+            extension.commands.add(reader.getAttributeValue(null, "name"));
+            parseUntilEndElement(reader, "command");
+          } else if ("enum".equals(reader.getLocalName())) {
+            extension.enums.add(reader.getAttributeValue(null, "name"));
+            parseUntilEndElement(reader, "enum");
+          }
+          break;
+      }
+    }
+    return extension;
+  }
+
+  private void parseFeature(final XMLStreamReader reader, final IdentifierCollector identifierCollector) throws Exception {
+    FeatureCollector featureCollector = new FeatureCollector(reader);
 
     while (reader.hasNext()) {
       int event = reader.next();
       switch (event) {
         case XMLStreamConstants.END_ELEMENT:
           if ("feature".equals(reader.getLocalName())) {
-            featureCollector.writeDocs();
+            featureCollector.collect(identifierCollector);
             return;
           }
           break;
@@ -129,14 +311,16 @@ public class RegistryParser {
   }
 
   private static enum Type {
-    Command("command"),
-    CommandRemoved("command-removed"),
-    Enum("enum"),
-    EnumRemoved("enum-removed");
+    Command("command", false),
+    CommandRemoved("command", true),
+    Enum("enum", false),
+    EnumRemoved("enum", true);
 
     private final String typeName;
-    private Type(final String typeName) {
+    private final boolean removed;
+    private Type(final String typeName, final boolean removed) {
       this.typeName = typeName;
+      this.removed = removed;
     }
 
     public String toString() {
@@ -157,34 +341,214 @@ public class RegistryParser {
   private static class FeatureCollector {
     private final String api;
     private final String number;
-    private final IndexWriter indexWriter;
     private final List<Feature> features = new ArrayList<Feature>();
 
-    public FeatureCollector(final XMLStreamReader reader, final IndexWriter writer) {
+    public FeatureCollector(final XMLStreamReader reader) {
       api = reader.getAttributeValue(null, "api");
       number = reader.getAttributeValue(null, "number");
-      indexWriter = writer;
     }
 
     public void addFeature(final Feature feature) {
       features.add(feature);
     }
 
-    public void writeDocs() throws IOException {
+    public void collect(final IdentifierCollector identifierCollector) {
       for (Feature feature : features) {
-        writeDoc(api, number, feature.name, feature.type.toString());
+        identifierCollector.add(api, number, feature);
+      }
+    }
+  }
+
+  /**
+   * Collects the features of all identifiers so that we can write a single document for every identifier. The
+   * documents are written in the order the identifiers appear in the registry first.
+   */
+  private static class IdentifierCollector {
+    private final Map<String, Identifier> identifiers = new LinkedHashMap<String, Identifier>();
+
+    public void add(final String api, final String number, final Feature feature) {
+      String key = feature.name.toLowerCase();
+      Identifier identifier = identifiers.get(key);
+      if (identifier == null) {
+        identifier = new Identifier(feature.name, feature.type.toString());
+        identifiers.put(key, identifier);
+      }
+      if (feature.type.removed) {
+        identifier.removed.add(api + ":" + number);
+      } else {
+        identifier.required.add(api + ":" + number);
+      }
+    }
+
+    public void writeDocs(final IndexWriter indexWriter) throws IOException {
+      for (Identifier identifier : identifiers.values()) {
+        writeDoc(indexWriter, identifier);
+      }
+    }
+
+    private void writeDoc(final IndexWriter indexWriter, final Identifier identifier) throws IOException {
+      Document doc = new Document();
+      doc.add(new TextField("name", identifier.name, Field.Store.YES));
+      doc.add(new StringField("byName", identifier.name.toLowerCase(), Field.Store.NO));
+      doc.add(new StringField("type", identifier.type, Field.Store.YES));
+      for (String apiNumber : identifier.required) {
+        doc.add(new StringField("api-number", apiNumber, Field.Store.NO));
+        doc.add(new SortedSetDocValuesField("required", new BytesRef(apiNumber)));
+      }
+      for (String apiNumber : identifier.removed) {
+        doc.add(new StringField("api-number", apiNumber, Field.Store.NO));
+        doc.add(new SortedSetDocValuesField("removed", new BytesRef(apiNumber)));
       }
+      indexWriter.addDocument(doc);
+    }
+  }
+
+  /**
+   * The name, type and attributes of a proto or param element.
+   */
+  private static class Declaration {
+    private final String group;
+    private final String len;
+    private String type;
+    private String ptype;
+    private String name;
+
+    public Declaration(final String group, final String len) {
+      this.group = group == null ? "" : group;
+      this.len = len == null ? "" : len;
     }
+  }
 
-    private void writeDoc(final String api, final String number, final String name, final String type) throws IOException {
+  /**
+   * The signature of a command and the commands it is an alias or the vector equivalent of. All param fields are
+   * written in parameter order, missing values as empty strings.
+   */
+  private static class Command {
+    private Declaration proto;
+    private final List<Declaration> params = new ArrayList<Declaration>();
+    private final List<String> aliases = new ArrayList<String>();
+    private final List<String> vecequivs = new ArrayList<String>();
+
+    public void writeDoc(final IndexWriter indexWriter) throws IOException {
+      if (proto == null || proto.name.isEmpty()) {
+        return;
+      }
       Document doc = new Document();
-      doc.add(new StringField("api", api, Field.Store.YES));
-      doc.add(new StringField("number", number, Field.Store.YES));
-      doc.add(new StringField("api-number", api + ":" + number, Field.Store.YES));
-      doc.add(new TextField("name", name, Field.Store.YES));
-      doc.add(new StringField("byName", name.toLowerCase(), Field.Store.NO));
-      doc.add(new StringField("type", type, Field.Store.YES));
-      System.out.println(String.format("%4s, %3s, %50s, %s", api, number, name, type));
+      doc.add(new StoredField("signature", proto.name));
+      doc.add(new StoredField("return-type", proto.type));
+      doc.add(new StoredField("return-group", proto.group));
+      for (Declaration param : params) {
+        doc.add(new StoredField("param-name", param.name));
+        doc.add(new StoredField("param-type", param.type));
+        doc.add(new StoredField("param-ptype", param.ptype));
+        doc.add(new StoredField("param-group", param.group));
+        doc.add(new StoredField("param-len", param.len));
+      }
+      for (String alias : aliases) {
+        doc.add(new StoredField("alias", alias));
+      }
+      for (String vecequiv : vecequivs) {
+        doc.add(new StoredField("vecequiv", vecequiv));
+      }
+      indexWriter.addDocument(doc);
+    }
+  }
+
+  /**
+   * The enums with a value of an enums block. The group and the type of the block apply to all of them, an enum
+   * might have a type of its own ("u" or "ull").
+   */
+  private static class EnumBlock {
+    private final String namespace;
+    private final String group;
+    private final String type;
+    private final List<String> names = new ArrayList<String>();
+    private final List<String> values = new ArrayList<String>();
+    private final List<String> types = new ArrayList<String>();
+
+    public EnumBlock(final String namespace, final String group, final String type) {
+      this.namespace = namespace == null ? "" : namespace;
+      this.group = group == null ? "" : group;
+      this.type = type == null ? "" : type;
+    }
+
+    public void writeDoc(final IndexWriter indexWriter) throws IOException {
+      if (names.isEmpty()) {
+        return;
+      }
+      Document doc = new Document();
+      doc.add(new StoredField("enums", namespace));
+      doc.add(new StoredField("enums-group", group));
+      doc.add(new StoredField("enums-type", type));
+      for (int i = 0; i < names.size(); i++) {
+        doc.add(new StoredField("enum-name", names.get(i)));
+        doc.add(new StoredField("enum-value", values.get(i)));
+        doc.add(new StoredField("enum-type", types.get(i) == null ? "" : types.get(i)));
+      }
+      indexWriter.addDocument(doc);
+    }
+  }
+
+  /**
+   * An enum group (the valid values of a parameter) with the names of its enums.
+   */
+  private static class Group {
+    private final String name;
+    private final List<String> enums = new ArrayList<String>();
+
+    public Group(final String name) {
+      this.name = name;
+    }
+
+    public void writeDoc(final IndexWriter indexWriter) throws IOException {
+      if (name == null || name.isEmpty()) {
+        return;
+      }
+      Document doc = new Document();
+      doc.add(new StoredField("group", name));
+      for (String e : enums) {
+        doc.add(new StoredField("group-enum", e));
+      }
+      indexWriter.addDocument(doc);
+    }
+  }
+
+  private static class Identifier {
+    private final String name;
+    private final String type;
+    private final Set<String> required = new LinkedHashSet<String>();
+    private final Set<String> removed = new LinkedHashSet<String>();
+
+    public Identifier(final String name, final String type) {
+      this.name = name;
+      this.type = type;
+    }
+  }
+
+  /**
+   * An extension with the commands and enums of all its require elements.
+   */
+  private static class Extension {
+    private final String name;
+    private final String supported;
+    private final Set<String> commands = new LinkedHashSet<String>();
+    private final Set<String> enums = new LinkedHashSet<String>();
+
+    public Extension(final String name, final String supported) {
+      this.name = name;
+      this.supported = supported == null ? "" : supported;
+    }
+
+    public void writeDoc(final IndexWriter indexWriter) throws IOException {
+      Document doc = new Document();
+      doc.add(new StringField("extension", name, Field.Store.YES));
+      doc.add(new StoredField("supported", supported));
+      for (String command : commands) {
+        doc.add(new StoredField("command", command));
+      }
+      for (String e : enums) {
+        doc.add(new StoredField("enum", e));
+      }
       indexWriter.addDocument(doc);
     }
   }
@@ -0,0 +1,151 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.MMapDirectory;
+
+/**
+ * A RegistrySnapshot keeps an already built index together with the GL versions found in it on disk. Snapshots are
+ * stored in a sub directory named after the checksum of the registry XML (and the index format version and analyzer
+ * mode) so a changed gl.xml will never open an old snapshot but will build (and write) a new one instead.
+ *
+ * @author void
+ */
+class RegistrySnapshot {
+  /**
+   * The file in the snapshot directory we keep the versions in. It is written last so its existence marks a
+   * complete snapshot.
+   */
+  private static final String VERSIONS_FILE = "versions.properties";
+
+  /**
+   * The snapshot directory for the registry.
+   */
+  private final File directory;
+
+  /**
+   * Create a snapshot for the given registry.
+   *
+   * @param baseDirectory the directory all snapshots are kept in
+   * @param checksum the checksum of the registry XML data
+   * @param analyzerMode the analyzer mode the index is built with
+   */
+  RegistrySnapshot(final File baseDirectory, final String checksum, final GLAnalyzer.Mode analyzerMode) {
+    this.directory = new File(
+        baseDirectory, checksum + "-" + Registry.INDEX_FORMAT_VERSION + "-" + analyzerMode.name().toLowerCase());
+  }
+
+  /**
+   * @return true when a complete snapshot for the registry exists
+   * @throws IOException
+   */
+  boolean exists() throws IOException {
+    if (!new File(directory, VERSIONS_FILE).isFile()) {
+      return false;
+    }
+    Directory index = FSDirectory.open(directory);
+    try {
+      return DirectoryReader.indexExists(index);
+    } finally {
+      index.close();
+    }
+  }
+
+  /**
+   * Open the snapshot memory mapped and read the versions back into the given sets.
+   *
+   * @param versions the version sets to fill keyed by name
+   * @return the memory mapped index directory
+   * @throws IOException
+   */
+  Directory open(final Map<String, Set<String>> versions) throws IOException {
+    Properties properties = new Properties();
+    InputStream in = new FileInputStream(new File(directory, VERSIONS_FILE));
+    try {
+      properties.load(in);
+    } finally {
+      in.close();
+    }
+    for (Map.Entry<String, Set<String>> entry : versions.entrySet()) {
+      String value = properties.getProperty(entry.getKey(), "");
+      for (String version : value.split(",")) {
+        if (!version.isEmpty()) {
+          entry.getValue().add(version);
+        }
+      }
+    }
+    return new MMapDirectory(directory);
+  }
+
+  /**
+   * Write the given index and versions as the snapshot. Everything is written into a temporary directory first which
+   * is then renamed so that other processes never see a half written snapshot.
+   *
+   * @param index the index to write
+   * @param versions the version sets keyed by name
+   * @throws IOException
+   */
+  void write(final Directory index, final Map<String, Set<String>> versions) throws IOException {
+    File temp = new File(directory.getParentFile(), directory.getName() + "." + System.nanoTime() + ".tmp");
+    Directory target = FSDirectory.open(temp);
+    try {
+      for (String file : index.listAll()) {
+        index.copy(target, file, file, IOContext.DEFAULT);
+      }
+    } finally {
+      target.close();
+    }
+
+    Properties properties = new Properties();
+    for (Map.Entry<String, Set<String>> entry : versions.entrySet()) {
+      StringBuilder value = new StringBuilder();
+      for (String version : entry.getValue()) {
+        if (value.length() > 0) {
+          value.append(",");
+        }
+        value.append(version);
+      }
+      properties.setProperty(entry.getKey(), value.toString());
+    }
+    OutputStream out = new FileOutputStream(new File(temp, VERSIONS_FILE));
+    try {
+      properties.store(out, "index.gl registry snapshot");
+    } finally {
+      out.close();
+    }
+
+    if (!temp.renameTo(directory)) {
+      // someone else was faster - his snapshot is as good as ours
+      delete(temp);
+    }
+  }
+
+  /**
+   * @return the snapshot directory
+   */
+  File getDirectory() {
+    return directory;
+  }
+
+  private static void delete(final File file) {
+    File[] files = file.listFiles();
+    if (files != null) {
+      for (File f : files) {
+        delete(f);
+      }
+    }
+    file.delete();
+  }
+}
@@ -0,0 +1,415 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import com.lessvoid.indexgl.registry.Registry.GLResult;
+import com.lessvoid.indexgl.registry.Registry.GLResult.ApiWithSupportedVersions;
+import com.lessvoid.indexgl.registry.Registry.GLResult.Availability;
+import com.lessvoid.indexgl.registry.Registry.GLResult.Combined;
+import com.lessvoid.indexgl.registry.Registry.GLResult.ExtensionAvailability;
+import com.lessvoid.indexgl.registry.Registry.TypeaheadResult;
+
+/**
+ * Writes the TypeaheadResult and the GLResult as UTF-8 encoded JSON straight to an OutputStream. The output is the
+ * same Gson creates (same field order, null fields left out, HTML characters escaped) but nothing is reflected and
+ * no JsonElement tree or intermediate String is built: the characters are encoded into a byte buffer every thread
+ * reuses and the buffer is written to the stream whenever it is full.
+ *
+ * The writer is not reentrant, a thread must finish writing one result before writing the next.
+ *
+ * @author void
+ */
+public final class ResultJson {
+  private static final int BUFFER_SIZE = 8192;
+
+  private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+  /**
+   * Valid in JSON but not in JavaScript strings so Gson escapes them.
+   */
+  private static final char LINE_SEPARATOR = 0x2028;
+  private static final char PARAGRAPH_SEPARATOR = 0x2029;
+
+  private static final ThreadLocal<ResultJson> WRITERS = new ThreadLocal<ResultJson>() {
+    @Override
+    protected ResultJson initialValue() {
+      return new ResultJson();
+    }
+  };
+
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private int position;
+  private OutputStream out;
+
+  /**
+   * The bytes written by toBytes() when they don't fit into the buffer.
+   */
+  private byte[] overflow;
+  private int overflowLength;
+
+  private ResultJson() {
+  }
+
+  /**
+   * Write the TypeaheadResult.
+   *
+   * @param result the result
+   * @param out the stream to write to (not flushed or closed)
+   * @throws IOException
+   */
+  public static void write(final TypeaheadResult result, final OutputStream out) throws IOException {
+    ResultJson writer = WRITERS.get();
+    writer.out = out;
+    try {
+      writer.typeahead(result);
+      writer.flush();
+    } finally {
+      writer.reset();
+    }
+  }
+
+  /**
+   * Write the GLResult.
+   *
+   * @param result the result
+   * @param out the stream to write to (not flushed or closed)
+   * @throws IOException
+   */
+  public static void write(final GLResult result, final OutputStream out) throws IOException {
+    ResultJson writer = WRITERS.get();
+    writer.out = out;
+    try {
+      writer.gl(result);
+      writer.flush();
+    } finally {
+      writer.reset();
+    }
+  }
+
+  /**
+   * @param result the result
+   * @return the GLResult as UTF-8 encoded JSON
+   */
+  public static byte[] toBytes(final GLResult result) {
+    ResultJson writer = WRITERS.get();
+    try {
+      writer.gl(result);
+      return writer.bytes();
+    } catch (IOException e) {
+      // there is no stream so nothing can fail
+      throw new IllegalStateException(e);
+    } finally {
+      writer.reset();
+    }
+  }
+
+  private void typeahead(final TypeaheadResult result) throws IOException {
+    raw('{');
+    boolean first = true;
+    if (result.getResult() != null) {
+      first = name("result", first);
+      strings(result.getResult());
+    }
+    if (result.getStats() != null) {
+      name("stats", first);
+      string(result.getStats());
+    }
+    raw('}');
+  }
+
+  private void gl(final GLResult result) throws IOException {
+    raw('{');
+    boolean first = true;
+    if (result.getName() != null) {
+      first = name("glName", first);
+      string(result.getName());
+    }
+    if (result.getVersions() != null) {
+      first = name("versions", first);
+      strings(result.getVersions());
+    }
+    if (result.getList() != null) {
+      first = name("list", first);
+      raw('[');
+      for (int i = 0; i < result.getList().size(); i++) {
+        if (i > 0) {
+          raw(',');
+        }
+        api(result.getList().get(i));
+      }
+      raw(']');
+    }
+    if (result.getExtensions() != null) {
+      first = name("extensions", first);
+      strings(result.getExtensions());
+    }
+    if (result.getAliases() != null) {
+      first = name("aliases", first);
+      strings(result.getAliases());
+    }
+    if (result.getVecequiv() != null) {
+      first = name("vecequiv", first);
+      strings(result.getVecequiv());
+    }
+    if (result.getCombined() != null) {
+      name("combined", first);
+      combined(result.getCombined());
+    }
+    raw('}');
+  }
+
+  private void api(final ApiWithSupportedVersions api) throws IOException {
+    if (api == null) {
+      nullValue();
+      return;
+    }
+    raw('{');
+    boolean first = true;
+    if (api.getApi() != null) {
+      first = name("api", first);
+      string(api.getApi());
+    }
+    if (api.getSupported() != null) {
+      name("supported", first);
+      strings(api.getSupported());
+    }
+    raw('}');
+  }
+
+  private void combined(final Combined combined) throws IOException {
+    raw('{');
+    boolean first = true;
+    if (combined.getVersions() != null) {
+      first = name("versions", first);
+      raw('[');
+      for (int i = 0; i < combined.getVersions().size(); i++) {
+        if (i > 0) {
+          raw(',');
+        }
+        Availability availability = combined.getVersions().get(i);
+        raw('{');
+        boolean firstField = true;
+        firstField = optional("api", availability.getApi(), firstField);
+        firstField = optional("since", availability.getSince(), firstField);
+        optional("via", availability.getVia(), firstField);
+        raw('}');
+      }
+      raw(']');
+    }
+    if (combined.getExtensions() != null) {
+      name("extensions", first);
+      raw('[');
+      for (int i = 0; i < combined.getExtensions().size(); i++) {
+        if (i > 0) {
+          raw(',');
+        }
+        ExtensionAvailability extension = combined.getExtensions().get(i);
+        raw('{');
+        boolean firstField = optional("name", extension.getName(), true);
+        optional("via", extension.getVia(), firstField);
+        raw('}');
+      }
+      raw(']');
+    }
+    raw('}');
+  }
+
+  /**
+   * Write a string field unless the value is null.
+   *
+   * @return the new first flag
+   */
+  private boolean optional(final String name, final String value, final boolean first) throws IOException {
+    if (value == null) {
+      return first;
+    }
+    name(name, first);
+    string(value);
+    return false;
+  }
+
+  /**
+   * Write the name of a field (only plain ASCII names are used).
+   *
+   * @return false, the next field is not the first anymore
+   */
+  private boolean name(final String name, final boolean first) throws IOException {
+    if (!first) {
+      raw(',');
+    }
+    raw('"');
+    for (int i = 0; i < name.length(); i++) {
+      raw(name.charAt(i));
+    }
+    raw('"');
+    raw(':');
+    return false;
+  }
+
+  private void strings(final List<String> values) throws IOException {
+    raw('[');
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        raw(',');
+      }
+      string(values.get(i));
+    }
+    raw(']');
+  }
+
+  private void strings(final String[] values) throws IOException {
+    raw('[');
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        raw(',');
+      }
+      string(values[i]);
+    }
+    raw(']');
+  }
+
+  private void nullValue() throws IOException {
+    raw('n');
+    raw('u');
+    raw('l');
+    raw('l');
+  }
+
+  /**
+   * Write a string with the escapes Gson uses by default.
+   */
+  private void string(final String value) throws IOException {
+    if (value == null) {
+      nullValue();
+      return;
+    }
+    raw('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        switch (c) {
+          case '"':
+            raw('\\');
+            raw('"');
+            break;
+          case '\\':
+            raw('\\');
+            raw('\\');
+            break;
+          case '\t':
+            raw('\\');
+            raw('t');
+            break;
+          case '\b':
+            raw('\\');
+            raw('b');
+            break;
+          case '\n':
+            raw('\\');
+            raw('n');
+            break;
+          case '\r':
+            raw('\\');
+            raw('r');
+            break;
+          case '\f':
+            raw('\\');
+            raw('f');
+            break;
+          case '<':
+          case '>':
+          case '&':
+          case '=':
+          case '\'':
+            unicodeEscape(c);
+            break;
+          default:
+            if (c < 0x20) {
+              unicodeEscape(c);
+            } else {
+              raw(c);
+            }
+        }
+      } else if (c == LINE_SEPARATOR || c == PARAGRAPH_SEPARATOR) {
+        unicodeEscape(c);
+      } else if (c < 0x800) {
+        raw(0xc0 | c >> 6);
+        raw(0x80 | c & 0x3f);
+      } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        raw(0xf0 | codePoint >> 18);
+        raw(0x80 | codePoint >> 12 & 0x3f);
+        raw(0x80 | codePoint >> 6 & 0x3f);
+        raw(0x80 | codePoint & 0x3f);
+      } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+        // a lone surrogate can't be encoded, String.getBytes() writes '?' as well
+        raw('?');
+      } else {
+        raw(0xe0 | c >> 12);
+        raw(0x80 | c >> 6 & 0x3f);
+        raw(0x80 | c & 0x3f);
+      }
+    }
+    raw('"');
+  }
+
+  private void unicodeEscape(final char c) throws IOException {
+    raw('\\');
+    raw('u');
+    raw(HEX[c >> 12 & 0xf]);
+    raw(HEX[c >> 8 & 0xf]);
+    raw(HEX[c >> 4 & 0xf]);
+    raw(HEX[c & 0xf]);
+  }
+
+  private void raw(final int b) throws IOException {
+    if (position == buffer.length) {
+      drain();
+    }
+    buffer[position++] = (byte) b;
+  }
+
+  /**
+   * Make room in the buffer: write it to the stream or, without a stream, keep it in the overflow.
+   */
+  private void drain() throws IOException {
+    if (out != null) {
+      out.write(buffer, 0, position);
+    } else {
+      if (overflow == null) {
+        overflow = new byte[buffer.length * 2];
+      } else if (overflow.length - overflowLength < position) {
+        overflow = Arrays.copyOf(overflow, overflow.length * 2);
+      }
+      System.arraycopy(buffer, 0, overflow, overflowLength, position);
+      overflowLength += position;
+    }
+    position = 0;
+  }
+
+  private void flush() throws IOException {
+    if (position > 0) {
+      drain();
+    }
+  }
+
+  private byte[] bytes() {
+    if (overflow == null) {
+      return Arrays.copyOf(buffer, position);
+    }
+    byte[] result = Arrays.copyOf(overflow, overflowLength + position);
+    System.arraycopy(buffer, 0, result, overflowLength, position);
+    return result;
+  }
+
+  private void reset() {
+    position = 0;
+    out = null;
+    overflow = null;
+    overflowLength = 0;
+  }
+}
@@ -0,0 +1,126 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.util.WAH8DocIdSet;
+
+/**
+ * Evaluates set expressions over the IdentifierSets. The operators are "&amp;" (or "and") for the intersection, "|"
+ * (or "or") for the union and "-" (or "minus") for the difference. The intersection binds stronger than union and
+ * difference which are evaluated from left to right. Parentheses can be used for grouping:
+ *
+ * <pre>
+ * (gl:3.3:core - gles2:2.0) and commands
+ * gl:4.4 minus gl:4.1 and enums
+ * </pre>
+ *
+ * @author void
+ */
+class SetExpression {
+  private final IdentifierSets sets;
+  private final List<String> tokens;
+  private int position;
+
+  private SetExpression(final IdentifierSets sets, final List<String> tokens) {
+    this.sets = sets;
+    this.tokens = tokens;
+  }
+
+  /**
+   * Evaluate the expression.
+   *
+   * @param expression the expression
+   * @param sets the sets the expression can refer to
+   * @return the resulting set
+   * @throws IllegalArgumentException if the expression is invalid or refers to an unknown set
+   * @throws IOException
+   */
+  static WAH8DocIdSet evaluate(final String expression, final IdentifierSets sets) throws IOException {
+    SetExpression parser = new SetExpression(sets, tokenize(expression));
+    if (parser.tokens.isEmpty()) {
+      throw new IllegalArgumentException("empty expression");
+    }
+    WAH8DocIdSet result = parser.expression();
+    if (parser.position < parser.tokens.size()) {
+      throw new IllegalArgumentException("unexpected '" + parser.tokens.get(parser.position) + "'");
+    }
+    return result;
+  }
+
+  private WAH8DocIdSet expression() throws IOException {
+    WAH8DocIdSet result = term();
+    while (position < tokens.size()) {
+      String operator = tokens.get(position);
+      if ("|".equals(operator) || "or".equalsIgnoreCase(operator)) {
+        position++;
+        result = IdentifierSets.union(result, term());
+      } else if ("-".equals(operator) || "minus".equalsIgnoreCase(operator)) {
+        position++;
+        result = IdentifierSets.difference(result, term());
+      } else {
+        break;
+      }
+    }
+    return result;
+  }
+
+  private WAH8DocIdSet term() throws IOException {
+    WAH8DocIdSet result = factor();
+    while (position < tokens.size()) {
+      String operator = tokens.get(position);
+      if (!"&".equals(operator) && !"and".equalsIgnoreCase(operator)) {
+        break;
+      }
+      position++;
+      result = IdentifierSets.intersect(result, factor());
+    }
+    return result;
+  }
+
+  private WAH8DocIdSet factor() throws IOException {
+    if (position >= tokens.size()) {
+      throw new IllegalArgumentException("unexpected end of expression");
+    }
+    String token = tokens.get(position++);
+    if ("(".equals(token)) {
+      WAH8DocIdSet result = expression();
+      if (position >= tokens.size() || !")".equals(tokens.get(position))) {
+        throw new IllegalArgumentException("missing ')'");
+      }
+      position++;
+      return result;
+    }
+    WAH8DocIdSet result = sets.get(token);
+    if (result == null) {
+      throw new IllegalArgumentException("unknown set '" + token + "'");
+    }
+    return result;
+  }
+
+  private static List<String> tokenize(final String expression) {
+    List<String> result = new ArrayList<String>();
+    StringBuilder name = new StringBuilder();
+    for (int i = 0; i < expression.length(); i++) {
+      char c = expression.charAt(i);
+      if (Character.isLetterOrDigit(c) || c == '.' || c == ':' || c == '_') {
+        name.append(c);
+        continue;
+      }
+      if (name.length() > 0) {
+        result.add(name.toString());
+        name.setLength(0);
+      }
+      if (c == '&' || c == '|' || c == '-' || c == '(' || c == ')') {
+        result.add(String.valueOf(c));
+      } else if (!Character.isWhitespace(c)) {
+        throw new IllegalArgumentException("unexpected '" + c + "'");
+      }
+    }
+    if (name.length() > 0) {
+      result.add(name.toString());
+    }
+    return result;
+  }
+}
@@ -0,0 +1,178 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.AtomicReader;
+
+import com.lessvoid.indexgl.registry.Registry.SignatureResult;
+import com.lessvoid.indexgl.registry.Registry.SignatureResult.Parameter;
+
+/**
+ * The immutable command signatures. Every distinct string (types, parameter names, groups, lengths) is stored once
+ * in a string pool, everything else is an int array: one column per attribute of the return type by identifier
+ * ordinal and one column per attribute of a parameter with all parameters of all commands in a row. A few hundred
+ * kilobytes instead of an object graph of ten thousand parameters. Identifiers keep the ordinals of the
+ * ExtensionTable, commands of the gl.xml that are neither part of a feature nor of an extension are not kept.
+ *
+ * @author void
+ */
+class SignatureTable {
+  private static final int NONE = -1;
+
+  private final ExtensionTable extensions;
+
+  /**
+   * All distinct strings.
+   */
+  private final String[] strings;
+
+  /**
+   * The return type and group by identifier ordinal (NONE for identifiers without signature).
+   */
+  private final int[] returnTypes;
+  private final int[] returnGroups;
+
+  /**
+   * The parameters of identifier i are the rows parameterOffsets[i] until parameterOffsets[i+1].
+   */
+  private final int[] parameterOffsets;
+  private final int[] parameterNames;
+  private final int[] parameterTypes;
+  private final int[] parameterPtypes;
+  private final int[] parameterGroups;
+  private final int[] parameterLens;
+
+  private SignatureTable(
+      final ExtensionTable extensions,
+      final String[] strings,
+      final int[] returnTypes,
+      final int[] returnGroups,
+      final int[] parameterOffsets,
+      final int[] parameterNames,
+      final int[] parameterTypes,
+      final int[] parameterPtypes,
+      final int[] parameterGroups,
+      final int[] parameterLens) {
+    this.extensions = extensions;
+    this.strings = strings;
+    this.returnTypes = returnTypes;
+    this.returnGroups = returnGroups;
+    this.parameterOffsets = parameterOffsets;
+    this.parameterNames = parameterNames;
+    this.parameterTypes = parameterTypes;
+    this.parameterPtypes = parameterPtypes;
+    this.parameterGroups = parameterGroups;
+    this.parameterLens = parameterLens;
+  }
+
+  /**
+   * Build the table from the signature documents which follow the extension documents in the index.
+   *
+   * @param reader the reader to read the documents from
+   * @param matrix the matrix of the identifiers
+   * @param extensions the extension table with the ordinals of the identifiers only defined by extensions
+   * @return the new SignatureTable
+   * @throws IOException
+   */
+  static SignatureTable build(
+      final AtomicReader reader,
+      final CompatibilityMatrix matrix,
+      final ExtensionTable extensions) throws IOException {
+    int identifierCount = extensions.identifierCount();
+    StringPool pool = new StringPool();
+    int[] returnTypes = new int[identifierCount];
+    int[] returnGroups = new int[identifierCount];
+    Arrays.fill(returnTypes, NONE);
+    Arrays.fill(returnGroups, NONE);
+    Document[] signatures = new Document[identifierCount];
+
+    for (int doc = matrix.size(); doc < reader.maxDoc(); doc++) {
+      Document document = reader.document(doc);
+      String name = document.get("signature");
+      if (name == null) {
+        continue;
+      }
+      int ordinal = matrix.ordinal(name);
+      if (ordinal == -1) {
+        ordinal = extensions.extensionIdentifier(name);
+      }
+      if (ordinal != -1) {
+        signatures[ordinal] = document;
+      }
+    }
+
+    // the parameters are written in ordinal order so that the parameters of an identifier are a single range
+    int[] parameterOffsets = new int[identifierCount + 1];
+    for (int ordinal = 0; ordinal < identifierCount; ordinal++) {
+      int count = signatures[ordinal] == null ? 0 : signatures[ordinal].getValues("param-name").length;
+      parameterOffsets[ordinal + 1] = parameterOffsets[ordinal] + count;
+    }
+    int parameterCount = parameterOffsets[identifierCount];
+    int[] parameterNames = new int[parameterCount];
+    int[] parameterTypes = new int[parameterCount];
+    int[] parameterPtypes = new int[parameterCount];
+    int[] parameterGroups = new int[parameterCount];
+    int[] parameterLens = new int[parameterCount];
+    for (int ordinal = 0; ordinal < identifierCount; ordinal++) {
+      Document document = signatures[ordinal];
+      if (document == null) {
+        continue;
+      }
+      returnTypes[ordinal] = pool.add(document.get("return-type"));
+      returnGroups[ordinal] = pool.add(document.get("return-group"));
+      int row = parameterOffsets[ordinal];
+      pool.addAll(document.getValues("param-name"), parameterNames, row);
+      pool.addAll(document.getValues("param-type"), parameterTypes, row);
+      pool.addAll(document.getValues("param-ptype"), parameterPtypes, row);
+      pool.addAll(document.getValues("param-group"), parameterGroups, row);
+      pool.addAll(document.getValues("param-len"), parameterLens, row);
+    }
+
+    return new SignatureTable(
+        extensions,
+        pool.toArray(),
+        returnTypes,
+        returnGroups,
+        parameterOffsets,
+        parameterNames,
+        parameterTypes,
+        parameterPtypes,
+        parameterGroups,
+        parameterLens);
+  }
+
+  /**
+   * Create the SignatureResult for the given identifier.
+   *
+   * @param ordinal the identifier ordinal
+   * @return the SignatureResult or null if the identifier has no signature (enums)
+   */
+  SignatureResult result(final int ordinal) {
+    if (ordinal < 0 || ordinal >= returnTypes.length || returnTypes[ordinal] == NONE) {
+      return null;
+    }
+    List<Parameter> parameters = new ArrayList<Parameter>(parameterOffsets[ordinal + 1] - parameterOffsets[ordinal]);
+    for (int row = parameterOffsets[ordinal]; row < parameterOffsets[ordinal + 1]; row++) {
+      parameters.add(new Parameter(
+          string(parameterNames[row]),
+          string(parameterTypes[row]),
+          string(parameterPtypes[row]),
+          string(parameterGroups[row]),
+          string(parameterLens[row])));
+    }
+    return new SignatureResult(
+        extensions.identifierName(ordinal), string(returnTypes[ordinal]), string(returnGroups[ordinal]), parameters);
+  }
+
+  /**
+   * @return the string or null for a missing (empty) value
+   */
+  private String string(final int index) {
+    String value = strings[index];
+    return value.isEmpty() ? null : value;
+  }
+}
@@ -0,0 +1,282 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds all GL commands ("gl*") and enums ("GL_*") known to the registry in C/C++ source code and calculates the
+ * minimum version every profile needs to support all of them. The source is read in small chunks and only the
+ * current identifier is buffered so the memory used does not depend on the size of the source. Comments and string
+ * literals are skipped.
+ *
+ * @author void
+ */
+public class SourceScanner {
+  /**
+   * Identifiers longer than this can't be in the registry and are skipped.
+   */
+  private static final int MAX_IDENTIFIER_LENGTH = 128;
+
+  private static final int BUFFER_SIZE = 8 * 1024;
+
+  private final CompatibilityMatrix matrix;
+
+  SourceScanner(final CompatibilityMatrix matrix) {
+    this.matrix = matrix;
+  }
+
+  /**
+   * Scan the source. The reader is not closed.
+   *
+   * @param source the source code
+   * @return the identifiers found and the minimum version for every profile
+   * @throws IOException
+   */
+  public ScanResult scan(final Reader source) throws IOException {
+    BitSet found = new BitSet(matrix.size());
+    Tokenizer tokenizer = new Tokenizer(found);
+    char[] buffer = new char[BUFFER_SIZE];
+    int length;
+    while ((length = source.read(buffer)) != -1) {
+      for (int i = 0; i < length; i++) {
+        tokenizer.next(buffer[i]);
+      }
+    }
+    tokenizer.next('\n');
+    return result(found, tokenizer.identifiers);
+  }
+
+  private ScanResult result(final BitSet found, final long identifiers) {
+    List<String> names = new ArrayList<String>();
+    for (int ordinal = found.nextSetBit(0); ordinal != -1; ordinal = found.nextSetBit(ordinal + 1)) {
+      names.add(matrix.name(ordinal));
+    }
+
+    List<String> versions = matrix.getVersions();
+    List<ProfileRequirement> profiles = new ArrayList<ProfileRequirement>();
+    for (int row = 0; row < matrix.rowCount(); row++) {
+      long available = 0;
+      long supported = -1L;
+      for (int ordinal = found.nextSetBit(0); ordinal != -1; ordinal = found.nextSetBit(ordinal + 1)) {
+        available |= matrix.rowAvailable(ordinal, row);
+        supported &= matrix.rowSupported(ordinal, row);
+      }
+      supported &= available;
+
+      int minimum = supported == 0 ? versions.size() : Long.numberOfTrailingZeros(supported);
+      Map<String, List<String>> blockers = new LinkedHashMap<String, List<String>>();
+      for (int column = 0; column < minimum; column++) {
+        if ((available & (1L << column)) == 0) {
+          continue;
+        }
+        List<String> blocking = new ArrayList<String>();
+        for (int ordinal = found.nextSetBit(0); ordinal != -1; ordinal = found.nextSetBit(ordinal + 1)) {
+          if ((matrix.rowSupported(ordinal, row) & (1L << column)) == 0) {
+            blocking.add(matrix.name(ordinal));
+          }
+        }
+        blockers.put(versions.get(column), blocking);
+      }
+      profiles.add(new ProfileRequirement(
+          matrix.row(row),
+          minimum < versions.size() ? versions.get(minimum) : null,
+          blockers));
+    }
+    return new ScanResult(identifiers, names, profiles);
+  }
+
+  /**
+   * A minimal C tokenizer that only cares about identifiers, comments and literals.
+   */
+  private class Tokenizer {
+    private static final int CODE = 0;
+    private static final int IDENTIFIER = 1;
+    private static final int NUMBER = 2;
+    private static final int SLASH = 3;
+    private static final int LINE_COMMENT = 4;
+    private static final int BLOCK_COMMENT = 5;
+    private static final int BLOCK_COMMENT_STAR = 6;
+    private static final int STRING = 7;
+    private static final int STRING_ESCAPE = 8;
+
+    private final BitSet found;
+    private final char[] identifier = new char[MAX_IDENTIFIER_LENGTH];
+    private int identifierLength;
+    private int state = CODE;
+    private char quote;
+    private long identifiers;
+
+    Tokenizer(final BitSet found) {
+      this.found = found;
+    }
+
+    void next(final char c) {
+      switch (state) {
+        case IDENTIFIER:
+          if (isIdentifierPart(c)) {
+            if (identifierLength < identifier.length) {
+              identifier[identifierLength] = c;
+            }
+            identifierLength++;
+            return;
+          }
+          endIdentifier();
+          break;
+        case NUMBER:
+          // 1.0f or 0x1F - the letters belong to the number
+          if (isIdentifierPart(c) || c == '.') {
+            return;
+          }
+          break;
+        case SLASH:
+          if (c == '/') {
+            state = LINE_COMMENT;
+            return;
+          }
+          if (c == '*') {
+            state = BLOCK_COMMENT;
+            return;
+          }
+          break;
+        case LINE_COMMENT:
+          if (c == '\n') {
+            state = CODE;
+          }
+          return;
+        case BLOCK_COMMENT:
+          if (c == '*') {
+            state = BLOCK_COMMENT_STAR;
+          }
+          return;
+        case BLOCK_COMMENT_STAR:
+          if (c == '/') {
+            state = CODE;
+          } else if (c != '*') {
+            state = BLOCK_COMMENT;
+          }
+          return;
+        case STRING:
+          if (c == '\\') {
+            state = STRING_ESCAPE;
+          } else if (c == quote || c == '\n') {
+            state = CODE;
+          }
+          return;
+        case STRING_ESCAPE:
+          state = STRING;
+          return;
+        default:
+          break;
+      }
+      code(c);
+    }
+
+    private void code(final char c) {
+      state = CODE;
+      if (Character.isJavaIdentifierStart(c) && c != '$') {
+        state = IDENTIFIER;
+        identifier[0] = c;
+        identifierLength = 1;
+      } else if (c >= '0' && c <= '9') {
+        state = NUMBER;
+      } else if (c == '/') {
+        state = SLASH;
+      } else if (c == '"' || c == '\'') {
+        state = STRING;
+        quote = c;
+      }
+    }
+
+    private void endIdentifier() {
+      identifiers++;
+      if (identifierLength > identifier.length || identifierLength < 3) {
+        return;
+      }
+      if (identifier[0] != 'g' && identifier[0] != 'G') {
+        return;
+      }
+      String name = new String(identifier, 0, identifierLength);
+      if (!name.startsWith("gl") && !name.startsWith("GL_")) {
+        return;
+      }
+      // the registry lookup is case insensitive but C is not (gl_Position is not GL_POSITION)
+      int ordinal = matrix.ordinal(name);
+      if (ordinal != -1 && name.equals(matrix.name(ordinal))) {
+        found.set(ordinal);
+      }
+    }
+
+    private boolean isIdentifierPart(final char c) {
+      return Character.isJavaIdentifierPart(c) && c != '$' && !Character.isIdentifierIgnorable(c);
+    }
+  }
+
+  /**
+   * The result of a scan.
+   */
+  public static class ScanResult {
+    private final long scanned;
+    private final List<String> identifiers;
+    private final List<ProfileRequirement> profiles;
+
+    public ScanResult(final long scanned, final List<String> identifiers, final List<ProfileRequirement> profiles) {
+      this.scanned = scanned;
+      this.identifiers = identifiers;
+      this.profiles = profiles;
+    }
+
+    /**
+     * @return the number of identifiers in the source
+     */
+    public long getScanned() {
+      return scanned;
+    }
+
+    /**
+     * @return the GL identifiers found in registry order
+     */
+    public List<String> getIdentifiers() {
+      return identifiers;
+    }
+
+    /**
+     * @return the requirement for every result row ("OpenGL", "OpenGL Core Profile", "OpenGL ES")
+     */
+    public List<ProfileRequirement> getProfiles() {
+      return profiles;
+    }
+  }
+
+  /**
+   * The minimum version of a profile (null when no version supports all identifiers) and the identifiers that are
+   * not supported by each of the lower versions.
+   */
+  public static class ProfileRequirement {
+    private final String api;
+    private final String minimum;
+    private final Map<String, List<String>> blockers;
+
+    public ProfileRequirement(final String api, final String minimum, final Map<String, List<String>> blockers) {
+      this.api = api;
+      this.minimum = minimum;
+      this.blockers = blockers;
+    }
+
+    public String getApi() {
+      return api;
+    }
+
+    public String getMinimum() {
+      return minimum;
+    }
+
+    public Map<String, List<String>> getBlockers() {
+      return blockers;
+    }
+  }
+}
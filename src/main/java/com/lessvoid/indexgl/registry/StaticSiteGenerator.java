@@ -0,0 +1,128 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import com.lessvoid.indexgl.registry.Registry.GLResult;
+
+/**
+ * Writes the api/gl/{identifier} JSON and the api/gl-table/{identifier} HTML of every identifier as static files
+ * (gl/{identifier}.json and gl-table/{identifier}.html) together with gzip compressed variants (.gz) so the web
+ * server can answer these requests without the registry. This is called from the Maven build and the files are
+ * packaged into the war. The identifiers are split among one thread per core.
+ *
+ * @author void
+ */
+public class StaticSiteGenerator {
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private final Registry registry;
+  private final File jsonDirectory;
+  private final File tableDirectory;
+
+  /**
+   * Create a new StaticSiteGenerator.
+   *
+   * @param registry the registry to write the identifiers of
+   * @param outputDirectory the directory to create the gl and gl-table directories in
+   */
+  StaticSiteGenerator(final Registry registry, final File outputDirectory) {
+    this.registry = registry;
+    this.jsonDirectory = new File(outputDirectory, "gl");
+    this.tableDirectory = new File(outputDirectory, "gl-table");
+  }
+
+  public static void main(final String[] args) throws Exception {
+    if (args.length != 1) {
+      System.err.println("usage: StaticSiteGenerator <output directory>");
+      System.exit(1);
+    }
+
+    long now = System.nanoTime();
+    Registry registry = new Registry();
+    File output = new File(args[0]);
+    int count = new StaticSiteGenerator(registry, output).generate(Runtime.getRuntime().availableProcessors());
+    System.out.println(
+        "Static site of " + count + " identifiers generated to: " + output + " in " +
+        (System.nanoTime() - now)/1000000000f + "sec");
+  }
+
+  /**
+   * Write the files of all identifiers.
+   *
+   * @param threads the number of threads to write with
+   * @return the number of identifiers written
+   * @throws Exception
+   */
+  int generate(final int threads) throws Exception {
+    if (!jsonDirectory.isDirectory() && !jsonDirectory.mkdirs()) {
+      throw new IOException("can't create " + jsonDirectory);
+    }
+    if (!tableDirectory.isDirectory() && !tableDirectory.mkdirs()) {
+      throw new IOException("can't create " + tableDirectory);
+    }
+
+    final List<String> identifiers = registry.allIdentifierNames();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int thread = 0; thread < threads; thread++) {
+        // every thread takes every threads-th identifier so expensive identifiers don't end up in a single slice
+        final int first = thread;
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            for (int i = first; i < identifiers.size(); i += threads) {
+              write(identifiers.get(i));
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    return identifiers.size();
+  }
+
+  private void write(final String identifier) throws Exception {
+    GLResult result = registry.getGLInfo(identifier);
+    byte[] json = ResultJson.toBytes(result);
+    write(new File(jsonDirectory, identifier + ".json"), json);
+    byte[] table = result.generateTable().getBytes(UTF8);
+    write(new File(tableDirectory, identifier + ".html"), table);
+  }
+
+  /**
+   * Write the content to the file and the gzip compressed content to the file with the additional suffix .gz.
+   */
+  private static void write(final File file, final byte[] content) throws IOException {
+    OutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content);
+    } finally {
+      out.close();
+    }
+    OutputStream gzip = new GZIPOutputStream(
+        new BufferedOutputStream(new FileOutputStream(new File(file.getPath() + ".gz"))));
+    try {
+      gzip.write(content);
+    } finally {
+      gzip.close();
+    }
+  }
+}
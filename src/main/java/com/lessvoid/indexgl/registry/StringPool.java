@@ -0,0 +1,48 @@
+package com.lessvoid.indexgl.registry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out a single index for equal strings while a table is built. The table keeps the strings as an array and
+ * refers to them by index. A missing (null) string is stored as the empty string.
+ *
+ * @author void
+ */
+class StringPool {
+  private final List<String> strings = new ArrayList<String>();
+  private final Map<String, Integer> indices = new HashMap<String, Integer>();
+
+  /**
+   * @param value the string (might be null)
+   * @return the index of the string
+   */
+  int add(final String value) {
+    String key = value == null ? "" : value;
+    Integer index = indices.get(key);
+    if (index == null) {
+      index = strings.size();
+      strings.add(key);
+      indices.put(key, index);
+    }
+    return index;
+  }
+
+  /**
+   * Add all strings and write their indices to the column starting at the given row.
+   */
+  void addAll(final String[] values, final int[] column, final int row) {
+    for (int i = 0; i < values.length; i++) {
+      column[row + i] = add(values[i]);
+    }
+  }
+
+  /**
+   * @return all strings by index
+   */
+  String[] toArray() {
+    return strings.toArray(new String[strings.size()]);
+  }
+}
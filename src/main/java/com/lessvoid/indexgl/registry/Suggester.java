@@ -0,0 +1,243 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.IntsRef;
+import org.apache.lucene.util.fst.Builder;
+import org.apache.lucene.util.fst.BytesRefFSTEnum;
+import org.apache.lucene.util.fst.BytesRefFSTEnum.InputOutput;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.PositiveIntOutputs;
+import org.apache.lucene.util.fst.Util;
+
+/**
+ * A prefix suggester for GL identifiers. Every identifier is split into its word parts ("glColor3fv" into "gl",
+ * "Color", "3" and "fv", "GL_TEXTURE_2D" into "GL", "TEXTURE", "2" and "D") and the lowercase rest of the
+ * identifier starting at every word part becomes a key ("glcolor3fv", "color3fv", "3fv", "fv"). The sorted keys are
+ * stored in a finite state transducer which maps each key to the start of its entry list. The entry lists contain
+ * the rank of the identifiers - identifiers with a higher weight have a lower rank - so that all identifiers for a
+ * prefix are a single contiguous range in the entry lists. The best results are the lowest ranks in that range.
+ *
+ * @author void
+ */
+class Suggester {
+  /**
+   * The identifier names by rank.
+   */
+  private final String[] names;
+
+  /**
+   * The key to entry list start mapping.
+   */
+  private final FST<Long> fst;
+
+  /**
+   * The entry lists of all keys (in key order) containing the ranks of the identifiers.
+   */
+  private final int[] entries;
+
+  /**
+   * Create a new Suggester.
+   *
+   * @param identifiers the identifiers to suggest
+   * @param weights the weight for each identifier, identifiers with a higher weight are suggested first and
+   * identifiers with the same weight are suggested in the given order
+   * @throws IOException
+   */
+  Suggester(final List<String> identifiers, final int[] weights) throws IOException {
+    Integer[] order = new Integer[identifiers.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(final Integer o1, final Integer o2) {
+        if (weights[o1] != weights[o2]) {
+          return weights[o1] > weights[o2] ? -1 : 1;
+        }
+        return o1.compareTo(o2);
+      }
+    });
+
+    names = new String[order.length];
+    Map<BytesRef, List<Integer>> keys = new TreeMap<BytesRef, List<Integer>>();
+    for (int rank = 0; rank < order.length; rank++) {
+      String name = identifiers.get(order[rank]);
+      names[rank] = name;
+
+      String lowerCase = name.toLowerCase();
+      for (int start : AnalyzerUtils.wordPartStarts(name)) {
+        BytesRef key = new BytesRef(lowerCase.substring(start));
+        List<Integer> ranks = keys.get(key);
+        if (ranks == null) {
+          ranks = new ArrayList<Integer>();
+          keys.put(key, ranks);
+        }
+        ranks.add(rank);
+      }
+    }
+
+    List<Integer> entryList = new ArrayList<Integer>();
+    Builder<Long> builder = new Builder<Long>(FST.INPUT_TYPE.BYTE1, PositiveIntOutputs.getSingleton());
+    IntsRef scratch = new IntsRef();
+    for (Map.Entry<BytesRef, List<Integer>> key : keys.entrySet()) {
+      builder.add(Util.toIntsRef(key.getKey(), scratch), (long) entryList.size());
+      entryList.addAll(key.getValue());
+    }
+    fst = builder.finish();
+
+    entries = new int[entryList.size()];
+    for (int i = 0; i < entries.length; i++) {
+      entries[i] = entryList.get(i);
+    }
+  }
+
+  /**
+   * Find the ranks of all identifiers with a word part starting with the given query.
+   *
+   * @param q the query
+   * @return the ranks of the identifiers found in ascending order (best first)
+   * @throws IOException
+   */
+  int[] candidates(final String q) throws IOException {
+    FixedBitSet hits = new FixedBitSet(names.length);
+    for (String key : keys(q)) {
+      collect(key, hits);
+    }
+
+    int[] result = new int[hits.cardinality()];
+    int rank = hits.nextSetBit(0);
+    for (int i = 0; i < result.length; i++) {
+      result[i] = rank;
+      rank = rank + 1 < names.length ? hits.nextSetBit(rank + 1) : -1;
+    }
+    return result;
+  }
+
+  /**
+   * Keep only the candidates that match the given query. Since every identifier matching a query also matches all
+   * prefixes of that query the candidates of a prefix can be narrowed down instead of searching all keys again.
+   *
+   * @param candidates the ranks of the candidates in ascending order (usually the candidates of a prefix of q)
+   * @param q the query
+   * @return the ranks of the candidates matching the query in ascending order
+   */
+  int[] narrow(final int[] candidates, final String q) {
+    String[] keys = keys(q);
+    int[] result = new int[candidates.length];
+    int count = 0;
+    for (int rank : candidates) {
+      if (matches(names[rank], keys)) {
+        result[count++] = rank;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  /**
+   * @param rank the rank of an identifier
+   * @return the name of the identifier
+   */
+  String name(final int rank) {
+    return names[rank];
+  }
+
+  /**
+   * @return the number of identifiers
+   */
+  int size() {
+    return names.length;
+  }
+
+  /**
+   * @return the approximate size of the suggester in bytes
+   */
+  long sizeInBytes() {
+    return fst.sizeInBytes() + entries.length * 4L;
+  }
+
+  /**
+   * The keys an identifier needs to have a word part starting with. The words of a query could have been separated
+   * with '_' or by case in the identifier.
+   */
+  private static String[] keys(final String q) {
+    String[] words = q.trim().toLowerCase().split("\\s+");
+    if (words.length == 1) {
+      return words;
+    }
+    return new String[] { join(words, ""), join(words, "_") };
+  }
+
+  private static boolean matches(final String name, final String[] keys) {
+    String lowerCase = name.toLowerCase();
+    for (int start : AnalyzerUtils.wordPartStarts(name)) {
+      for (String key : keys) {
+        if (!key.isEmpty() && lowerCase.startsWith(key, start)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private void collect(final String prefix, final FixedBitSet hits) throws IOException {
+    if (prefix.isEmpty()) {
+      return;
+    }
+    BytesRef from = new BytesRef(prefix);
+    int start = entryStart(from);
+    int end = entryStart(next(from));
+    for (int i = start; i < end; i++) {
+      hits.set(entries[i]);
+    }
+  }
+
+  /**
+   * Find the start of the entry list of the first key that is equal or greater than the given key.
+   */
+  private int entryStart(final BytesRef key) throws IOException {
+    if (key == null) {
+      return entries.length;
+    }
+    InputOutput<Long> ceil = new BytesRefFSTEnum<Long>(fst).seekCeil(key);
+    if (ceil == null) {
+      return entries.length;
+    }
+    return ceil.output.intValue();
+  }
+
+  /**
+   * @return the smallest key that is greater than all keys starting with the given prefix or null if there is none
+   */
+  private static BytesRef next(final BytesRef prefix) {
+    BytesRef result = BytesRef.deepCopyOf(prefix);
+    while (result.length > 0) {
+      int last = result.offset + result.length - 1;
+      if (result.bytes[last] != (byte) 0xff) {
+        result.bytes[last]++;
+        return result;
+      }
+      result.length--;
+    }
+    return null;
+  }
+
+  private static String join(final String[] words, final String separator) {
+    StringBuilder result = new StringBuilder();
+    for (String word : words) {
+      if (result.length() > 0) {
+        result.append(separator);
+      }
+      result.append(word);
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,115 @@
+package com.lessvoid.indexgl.registry;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.lessvoid.indexgl.registry.Registry.GLResult;
+
+/**
+ * Combines the support information of any number of identifiers into a single GLResult: a version is supported
+ * when all identifiers added are supported in that version. Identifiers only defined by extensions are not part of
+ * any version, they are counted separately and left out of the combined support. Only a few bitsets are kept so the
+ * number of identifiers is not limited by memory.
+ *
+ * @author void
+ */
+public class SupportAggregator {
+  private final CompatibilityMatrix matrix;
+  private final ExtensionTable extensions;
+  private final long[] rowAvailable;
+  private final long[] rowSupported;
+  private int count;
+  private int extensionOnly;
+  private int unknown;
+
+  SupportAggregator(final CompatibilityMatrix matrix, final ExtensionTable extensions) {
+    this.matrix = matrix;
+    this.extensions = extensions;
+    this.rowAvailable = new long[matrix.rowCount()];
+    this.rowSupported = new long[matrix.rowCount()];
+    Arrays.fill(rowSupported, -1L);
+  }
+
+  /**
+   * Add an identifier.
+   *
+   * @param gl the identifier (case insensitive)
+   * @return the ordinal of the identifier (from Registry.getOrdinalCount() on for identifiers only defined by
+   * extensions) or -1 if it is unknown (identifiers only defined by extensions and unknown identifiers are only
+   * counted)
+   */
+  public int add(final String gl) {
+    int ordinal = matrix.ordinal(gl);
+    if (ordinal == -1) {
+      ordinal = extensions.extensionIdentifier(gl);
+      if (ordinal == -1) {
+        unknown++;
+      } else {
+        extensionOnly++;
+      }
+      return ordinal;
+    }
+    for (int row = 0; row < rowAvailable.length; row++) {
+      rowAvailable[row] |= matrix.rowAvailable(ordinal, row);
+      rowSupported[row] &= matrix.rowSupported(ordinal, row);
+    }
+    count++;
+    return ordinal;
+  }
+
+  /**
+   * @return the number of known identifiers added
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * @return the number of identifiers only defined by extensions added
+   */
+  public int getExtensionOnly() {
+    return extensionOnly;
+  }
+
+  /**
+   * @return the number of unknown identifiers added
+   */
+  public int getUnknown() {
+    return unknown;
+  }
+
+  /**
+   * @return the first version supporting all identifiers by result row label ("OpenGL", "OpenGL Core Profile",
+   * "OpenGL ES" or
+   * the upper case name of another api like "EGL"), the version is null when there is none
+   */
+  public Map<String, String> getMinimumVersions() {
+    Map<String, String> result = new LinkedHashMap<String, String>();
+    for (int row = 0; row < rowAvailable.length; row++) {
+      long supported = supported(row);
+      result.put(
+          matrix.row(row),
+          supported == 0 ? null : matrix.getVersions().get(Long.numberOfTrailingZeros(supported)));
+    }
+    return result;
+  }
+
+  /**
+   * @return the combined support of all identifiers
+   */
+  public GLResult getResult() {
+    long[] supported = new long[rowSupported.length];
+    for (int row = 0; row < supported.length; row++) {
+      supported[row] = supported(row);
+    }
+    return matrix.result(null, null, rowAvailable, supported);
+  }
+
+  private long supported(final int row) {
+    if (count == 0) {
+      return 0;
+    }
+    return rowSupported[row] & rowAvailable[row];
+  }
+}
@@ -0,0 +1,231 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache in front of the Suggester. It keeps all candidates (the ranks of the identifiers found) keyed by
+ * the normalized query. Users type one character after the other ("g", "gl", "glC", "glCo", ...) so when a query is
+ * not cached the candidates of the longest cached prefix of the query are narrowed down instead of searching the
+ * Suggester again.
+ *
+ * The cache is split into segments which are least recently used maps of their own so that concurrent requests
+ * only compete for the lock of a single segment. The index is immutable so entries are never invalidated. A
+ * reloaded registry comes with a new cache.
+ *
+ * @author void
+ */
+class TypeaheadCache {
+  private static final int SEGMENTS = 16;
+
+  private final Suggester suggester;
+  private final Segment[] segments;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong narrowed = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * The time spent looking up the query, narrowing the candidates of a prefix and searching the Suggester.
+   */
+  private final LatencyHistogram lookupTime = new LatencyHistogram();
+  private final LatencyHistogram narrowTime = new LatencyHistogram();
+  private final LatencyHistogram searchTime = new LatencyHistogram();
+
+  /**
+   * Create a new TypeaheadCache.
+   *
+   * @param suggester the suggester to cache
+   * @param maxEntries the maximum number of queries to keep
+   */
+  TypeaheadCache(final Suggester suggester, final int maxEntries) {
+    this.suggester = suggester;
+    this.segments = new Segment[SEGMENTS];
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = new Segment(Math.max(1, maxEntries / SEGMENTS));
+    }
+  }
+
+  /**
+   * Find the ranks of all identifiers matching the query.
+   *
+   * @param q the query
+   * @return the ranks of the identifiers found in ascending order (best first), the array must not be modified
+   * @throws IOException
+   */
+  int[] candidates(final String q) throws IOException {
+    long start = System.nanoTime();
+    String key = normalize(q);
+    int[] result = get(key);
+    lookupTime.recordSince(start);
+    if (result != null) {
+      hits.incrementAndGet();
+      return result;
+    }
+    return find(key, true);
+  }
+
+  /**
+   * @return all cached queries (normalized)
+   */
+  List<String> queries() {
+    List<String> result = new ArrayList<String>();
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        result.addAll(segment.keySet());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Fill the cache with the candidates of the given queries without counting them as hits or misses. A reloaded
+   * registry is warmed with the queries of the registry it replaces.
+   *
+   * @param queries the normalized queries
+   * @throws IOException
+   */
+  void warm(final List<String> queries) throws IOException {
+    List<String> keys = new ArrayList<String>(queries);
+    // shorter queries first so the longer ones are narrowed down from their prefixes
+    Collections.sort(keys, new Comparator<String>() {
+      @Override
+      public int compare(final String a, final String b) {
+        return a.length() - b.length();
+      }
+    });
+    for (String key : keys) {
+      if (get(key) == null) {
+        find(key, false);
+      }
+    }
+  }
+
+  /**
+   * @return the number of queries answered directly from the cache
+   */
+  long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * @return the number of queries answered by narrowing the candidates of a cached prefix
+   */
+  long getNarrowed() {
+    return narrowed.get();
+  }
+
+  /**
+   * @return the number of queries the suggester had to be searched for
+   */
+  long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * @return the time spent looking up queries in the cache
+   */
+  LatencyHistogram getLookupTime() {
+    return lookupTime;
+  }
+
+  /**
+   * @return the time spent narrowing the candidates of a cached prefix
+   */
+  LatencyHistogram getNarrowTime() {
+    return narrowTime;
+  }
+
+  /**
+   * @return the time spent searching the suggester
+   */
+  LatencyHistogram getSearchTime() {
+    return searchTime;
+  }
+
+  /**
+   * @return the number of cached queries
+   */
+  int size() {
+    int result = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        result += segment.size();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * The query lowercase without leading and trailing whitespace and all other whitespace collapsed to a single
+   * space. The candidates of a query are always a subset of the candidates of every prefix of its normalized form.
+   */
+  static String normalize(final String q) {
+    return q.trim().toLowerCase().replaceAll("\\s+", " ");
+  }
+
+  private int[] find(final String key, final boolean count) throws IOException {
+    long start = System.nanoTime();
+    for (int length = key.length() - 1; length > 0; length--) {
+      int[] prefixCandidates = get(key.substring(0, length));
+      if (prefixCandidates != null) {
+        int[] result = suggester.narrow(prefixCandidates, key);
+        put(key, result);
+        if (count) {
+          narrowed.incrementAndGet();
+          narrowTime.recordSince(start);
+        }
+        return result;
+      }
+    }
+
+    int[] result = suggester.candidates(key);
+    put(key, result);
+    if (count) {
+      misses.incrementAndGet();
+      searchTime.recordSince(start);
+    }
+    return result;
+  }
+
+  private int[] get(final String key) {
+    Segment segment = segment(key);
+    synchronized (segment) {
+      return segment.get(key);
+    }
+  }
+
+  private void put(final String key, final int[] candidates) {
+    Segment segment = segment(key);
+    synchronized (segment) {
+      segment.put(key, candidates);
+    }
+  }
+
+  private Segment segment(final String key) {
+    int hash = key.hashCode();
+    hash ^= (hash >>> 16);
+    return segments[(hash & 0x7fffffff) % segments.length];
+  }
+
+  private static class Segment extends LinkedHashMap<String, int[]> {
+    private static final long serialVersionUID = 1L;
+    private final int maxEntries;
+
+    Segment(final int maxEntries) {
+      super(16, 0.75f, true);
+      this.maxEntries = maxEntries;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, int[]> eldest) {
+      return size() > maxEntries;
+    }
+  }
+}
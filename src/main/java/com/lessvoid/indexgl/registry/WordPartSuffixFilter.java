@@ -0,0 +1,76 @@
+package com.lessvoid.indexgl.registry;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.util.ArrayUtil;
+
+/**
+ * A TokenFilter that replaces every token with the rest of the token starting at each of its word parts. So
+ * "glColor3fv" becomes "glColor3fv", "Color3fv", "3fv" and "fv", each at its own position. Followed by an
+ * EdgeNGramTokenFilter this allows prefix matches on every word part without indexing every substring.
+ *
+ * @author void
+ */
+public final class WordPartSuffixFilter extends TokenFilter {
+  private final CharTermAttribute termAttribute = addAttribute(CharTermAttribute.class);
+  private final OffsetAttribute offsetAttribute = addAttribute(OffsetAttribute.class);
+  private final PositionIncrementAttribute positionIncrementAttribute = addAttribute(PositionIncrementAttribute.class);
+
+  private char[] token = new char[32];
+  private int tokenLength;
+  private int tokenStartOffset;
+  private int tokenEndOffset;
+  private List<Integer> starts;
+  private int next;
+
+  public WordPartSuffixFilter(final TokenStream input) {
+    super(input);
+  }
+
+  @Override
+  public boolean incrementToken() throws IOException {
+    if (starts != null && next < starts.size()) {
+      clearAttributes();
+      emit(starts.get(next++));
+      positionIncrementAttribute.setPositionIncrement(1);
+      return true;
+    }
+
+    do {
+      if (!input.incrementToken()) {
+        starts = null;
+        return false;
+      }
+      starts = AnalyzerUtils.wordPartStarts(termAttribute);
+    } while (starts.isEmpty());
+
+    tokenLength = termAttribute.length();
+    token = ArrayUtil.grow(token, tokenLength);
+    System.arraycopy(termAttribute.buffer(), 0, token, 0, tokenLength);
+    tokenStartOffset = offsetAttribute.startOffset();
+    tokenEndOffset = offsetAttribute.endOffset();
+    next = 0;
+
+    // the first suffix keeps the position increment of the original token
+    emit(starts.get(next++));
+    return true;
+  }
+
+  @Override
+  public void reset() throws IOException {
+    super.reset();
+    starts = null;
+    next = 0;
+  }
+
+  private void emit(final int start) {
+    termAttribute.copyBuffer(token, start, tokenLength - start);
+    offsetAttribute.setOffset(tokenStartOffset + start, tokenEndOffset);
+  }
+}
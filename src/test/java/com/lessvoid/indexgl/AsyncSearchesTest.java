@@ -0,0 +1,180 @@
+package com.lessvoid.indexgl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class AsyncSearchesTest {
+  private final AsyncSearches searches = new AsyncSearches(1, 2);
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @After
+  public void after() {
+    searches.shutdown();
+  }
+
+  @Test
+  public void testSuperseded() throws Exception {
+    FakeResponse blocker = new FakeResponse();
+    searches.submit(blocker, null, blocking());
+    FakeResponse first = new FakeResponse();
+    searches.submit(first, "session", ok());
+    FakeResponse second = new FakeResponse();
+    searches.submit(second, "session", ok());
+
+    assertTrue(first.cancelled);
+    release.countDown();
+    assertEquals(Status.OK.getStatusCode(), second.await().getStatus());
+    blocker.await();
+    assertEquals(null, first.resumed);
+    assertEquals(1, searches.getSuperseded());
+    assertEquals(2, searches.getCompleted());
+  }
+
+  @Test
+  public void testRejected() throws Exception {
+    searches.submit(new FakeResponse(), null, blocking());
+    searches.submit(new FakeResponse(), null, ok());
+    searches.submit(new FakeResponse(), null, ok());
+    FakeResponse rejected = new FakeResponse();
+    searches.submit(rejected, null, ok());
+    assertEquals(Status.SERVICE_UNAVAILABLE.getStatusCode(), rejected.await().getStatus());
+    assertEquals(1, searches.getRejected());
+    release.countDown();
+  }
+
+  @Test
+  public void testError() throws Exception {
+    FakeResponse response = new FakeResponse();
+    searches.submit(response, null, new Callable<Response>() {
+      @Override
+      public Response call() throws Exception {
+        throw new IllegalStateException("failed");
+      }
+    });
+    assertTrue(response.latch.await(10, TimeUnit.SECONDS));
+    assertTrue(response.resumed instanceof IllegalStateException);
+    assertFalse(response.cancelled);
+  }
+
+  private Callable<Response> blocking() {
+    return new Callable<Response>() {
+      @Override
+      public Response call() throws Exception {
+        release.await();
+        return Response.ok().build();
+      }
+    };
+  }
+
+  private Callable<Response> ok() {
+    return new Callable<Response>() {
+      @Override
+      public Response call() throws Exception {
+        return Response.ok().build();
+      }
+    };
+  }
+
+  private static class FakeResponse implements AsyncResponse {
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private volatile Object resumed;
+    private volatile boolean cancelled;
+
+    Response await() throws InterruptedException {
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+      return (Response) resumed;
+    }
+
+    @Override
+    public boolean resume(final Object response) {
+      resumed = response;
+      latch.countDown();
+      return true;
+    }
+
+    @Override
+    public boolean resume(final Throwable response) {
+      resumed = response;
+      latch.countDown();
+      return true;
+    }
+
+    @Override
+    public boolean cancel() {
+      cancelled = true;
+      latch.countDown();
+      return true;
+    }
+
+    @Override
+    public boolean cancel(final int retryAfter) {
+      return cancel();
+    }
+
+    @Override
+    public boolean cancel(final Date retryAfter) {
+      return cancel();
+    }
+
+    @Override
+    public boolean isSuspended() {
+      return latch.getCount() > 0;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+      return latch.getCount() == 0;
+    }
+
+    @Override
+    public boolean setTimeout(final long time, final TimeUnit unit) {
+      return true;
+    }
+
+    @Override
+    public void setTimeoutHandler(final TimeoutHandler handler) {
+    }
+
+    @Override
+    public Collection<Class<?>> register(final Class<?> callback) {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public Map<Class<?>, Collection<Class<?>>> register(final Class<?> callback, final Class<?>... callbacks) {
+      return Collections.emptyMap();
+    }
+
+    @Override
+    public Collection<Class<?>> register(final Object callback) {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public Map<Class<?>, Collection<Class<?>>> register(final Object callback, final Object... callbacks) {
+      return Collections.emptyMap();
+    }
+  }
+}
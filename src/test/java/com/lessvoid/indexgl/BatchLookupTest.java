@@ -0,0 +1,88 @@
+package com.lessvoid.indexgl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.lessvoid.indexgl.registry.Registry;
+
+public class BatchLookupTest {
+  private static Registry registry;
+  private static RenderedResults renderedResults;
+
+  @BeforeClass
+  public static void before() throws Exception {
+    registry = new Registry();
+    renderedResults = new RenderedResults(registry);
+  }
+
+  @Test
+  public void testBatch() throws Exception {
+    JsonObject response = batch("[\"glBegin\", \"glGenBuffers\", \"glUnknown\"]");
+
+    JsonArray results = response.getAsJsonArray("results");
+    assertEquals(3, results.size());
+    assertEquals("glBegin", results.get(0).getAsJsonObject().get("identifier").getAsString());
+    assertEquals("glBegin", results.get(0).getAsJsonObject().getAsJsonObject("result").get("glName").getAsString());
+    assertTrue(results.get(2).getAsJsonObject().get("result").isJsonNull());
+
+    JsonObject summary = response.getAsJsonObject("summary");
+    assertEquals(2, summary.get("identifiers").getAsInt());
+    assertEquals(0, summary.get("extensionOnly").getAsInt());
+    assertEquals(1, summary.get("unknown").getAsInt());
+    assertEquals("1.5", summary.getAsJsonObject("minimum").get("OpenGL").getAsString());
+    assertNull(summary.getAsJsonObject("minimum").get("OpenGL Core Profile"));
+    assertNull(summary.get("error"));
+  }
+
+  @Test
+  public void testExtensionOnly() throws Exception {
+    JsonObject response = batch("[\"glBegin\", \"glDebugMessageCallbackARB\", \"glUnknown\"]");
+
+    JsonObject result = response.getAsJsonArray("results").get(1).getAsJsonObject().getAsJsonObject("result");
+    assertEquals("glDebugMessageCallbackARB", result.get("glName").getAsString());
+    assertEquals("GL_ARB_debug_output", result.getAsJsonArray("extensions").get(0).getAsString());
+
+    JsonObject summary = response.getAsJsonObject("summary");
+    assertEquals(1, summary.get("identifiers").getAsInt());
+    assertEquals(1, summary.get("extensionOnly").getAsInt());
+    assertEquals(1, summary.get("unknown").getAsInt());
+    assertEquals("1.0", summary.getAsJsonObject("minimum").get("OpenGL").getAsString());
+  }
+
+  @Test
+  public void testManyIdentifiers() throws Exception {
+    StringBuilder request = new StringBuilder("[");
+    for (int i = 0; i < 5000; i++) {
+      request.append(i > 0 ? "," : "").append("\"glGenBuffers\"");
+    }
+    request.append("]");
+
+    JsonObject summary = batch(request.toString()).getAsJsonObject("summary");
+    assertEquals(5000, summary.get("identifiers").getAsInt());
+    assertEquals("1.5", summary.getAsJsonObject("minimum").get("OpenGL").getAsString());
+    assertEquals("3.2", summary.getAsJsonObject("minimum").get("OpenGL Core Profile").getAsString());
+  }
+
+  @Test
+  public void testMalformed() throws Exception {
+    JsonObject response = batch("[\"glBegin\", {\"x\": 1}]");
+    assertEquals(1, response.getAsJsonArray("results").size());
+    assertTrue(response.getAsJsonObject("summary").has("error"));
+  }
+
+  private JsonObject batch(final String request) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new BatchLookup(registry, renderedResults, new ByteArrayInputStream(request.getBytes("UTF-8"))).write(out);
+    return new JsonParser().parse(new String(out.toByteArray(), "UTF-8")).getAsJsonObject();
+  }
+}
@@ -0,0 +1,35 @@
+package com.lessvoid.indexgl;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.lessvoid.indexgl.registry.Registry;
+
+public class MetricsTest {
+
+  @Test
+  public void testWrite() throws Exception {
+    Registry registry = new Registry();
+    RenderedResults renderedResults = new RenderedResults(registry);
+    Metrics metrics = new Metrics();
+    metrics.request(Metrics.FIND).record(2000000);
+    metrics.notModified(Metrics.GL);
+    registry.suggest("glClear");
+    registry.suggest("glClear");
+
+    StringBuilder out = new StringBuilder();
+    metrics.write(out, registry, renderedResults, new AsyncSearches(1, 1));
+    String text = out.toString();
+    assertTrue(text, text.contains("# TYPE indexgl_request_duration_seconds summary\n"));
+    assertTrue(text, text.contains("indexgl_request_duration_seconds{endpoint=\"find\",quantile=\"0.99\"} 0.002"));
+    assertTrue(text, text.contains("indexgl_request_duration_seconds_count{endpoint=\"find\"} 1\n"));
+    assertTrue(text, text.contains("indexgl_registry_duration_seconds_count{phase=\"suggest\"} 2\n"));
+    assertTrue(text, text.contains("indexgl_registry_duration_seconds_count{phase=\"cache_lookup\"} 2\n"));
+    assertTrue(text, text.contains("indexgl_registry_duration_seconds_count{phase=\"candidate_search\"} 1\n"));
+    assertTrue(text, text.contains("indexgl_registry_duration_seconds_count{phase=\"name_load\"} 2\n"));
+    assertTrue(text, text.contains("indexgl_not_modified_total{endpoint=\"gl\"} 1\n"));
+    assertTrue(text, text.contains("indexgl_typeahead_cache_hit_ratio 0.5\n"));
+    assertTrue(text, text.contains("indexgl_index_size_bytes " + registry.indexSizeInBytes() + "\n"));
+  }
+}
@@ -0,0 +1,83 @@
+package com.lessvoid.indexgl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import com.lessvoid.indexgl.RegistryManager.Served;
+import com.lessvoid.indexgl.registry.Registry;
+
+public class RegistryManagerTest {
+
+  @Test
+  public void testReload() throws Exception {
+    byte[] registryData = read(Registry.class.getResourceAsStream("/gl.xml"));
+    File registryFile = new File("target/registry-reload-" + System.nanoTime() + ".xml");
+    write(registryFile, registryData, "");
+    RegistryManager registries = new RegistryManager(
+        Registry.openIfChanged(null, registryFile, null), registryFile, null);
+
+    Served old = registries.acquire();
+    old.registry.suggest("glCle");
+
+    // a new modification time alone doesn't reload the registry
+    registryFile.setLastModified(registryFile.lastModified() + 2000);
+    registries.maybeRefresh();
+    Served unchanged = registries.acquire();
+    assertSame(old, unchanged);
+    registries.release(unchanged);
+
+    write(registryFile, registryData, "<!-- changed -->");
+    registryFile.setLastModified(registryFile.lastModified() + 4000);
+    registries.maybeRefresh();
+    Served reloaded = registries.acquire();
+    assertNotSame(old, reloaded);
+    assertFalse(old.registry.getChecksum().equals(reloaded.registry.getChecksum()));
+
+    // the replaced registry stays open until the last request released it
+    assertEquals(1, old.registry.getRefCount());
+    assertEquals("glClear", old.registry.suggest("glClear").getResult()[0]);
+    registries.release(old);
+    assertEquals(0, old.registry.getRefCount());
+
+    // the typeahead cache of the new registry was warmed with the queries of the old one
+    reloaded.registry.suggest("glCle");
+    assertEquals(1, reloaded.registry.getTypeaheadCacheHits());
+    assertEquals(0, reloaded.registry.getTypeaheadCacheMisses());
+    registries.release(reloaded);
+    registries.close();
+    registryFile.delete();
+  }
+
+  private void write(final File file, final byte[] data, final String suffix) throws Exception {
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(data);
+      out.write(suffix.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+  }
+
+  private byte[] read(final InputStream inputStream) throws Exception {
+    try {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int length = 0;
+      while ((length = inputStream.read(buffer)) != -1) {
+        output.write(buffer, 0, length);
+      }
+      return output.toByteArray();
+    } finally {
+      inputStream.close();
+    }
+  }
+}
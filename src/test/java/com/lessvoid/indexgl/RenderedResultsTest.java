@@ -0,0 +1,39 @@
+package com.lessvoid.indexgl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.lessvoid.indexgl.registry.Registry;
+
+public class RenderedResultsTest {
+  private static Registry registry;
+
+  @BeforeClass
+  public static void before() throws Exception {
+    registry = new Registry();
+  }
+
+  @Test
+  public void testRendered() throws Exception {
+    RenderedResults rendered = new RenderedResults(registry);
+    for (String gl : new String[] { "glNewList", "GL_VERTEX_ARRAY", "gl_vertex_array", "GL_2D" }) {
+      int ordinal = registry.getOrdinal(gl);
+      assertEquals(gl, new Gson().toJson(registry.getGLInfo(gl)), new String(rendered.json(ordinal), "UTF-8"));
+      assertEquals(gl, registry.getGLInfo(gl).generateTable(), new String(rendered.table(ordinal), "UTF-8"));
+      assertSame(rendered.json(ordinal), rendered.json(ordinal));
+    }
+  }
+
+  @Test
+  public void testTags() throws Exception {
+    RenderedResults first = new RenderedResults(registry);
+    RenderedResults second = new RenderedResults(registry);
+    assertEquals(first.getJsonTag(), second.getJsonTag());
+    assertEquals(false, first.getJsonTag().equals(first.getTableTag()));
+    assertEquals(false, first.getJsonTag().isWeak());
+  }
+}
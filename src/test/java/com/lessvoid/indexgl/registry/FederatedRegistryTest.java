@@ -0,0 +1,91 @@
+package com.lessvoid.indexgl.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.lessvoid.indexgl.registry.FederatedRegistry.FederatedGLResult;
+import com.lessvoid.indexgl.registry.FederatedRegistry.FederatedTypeaheadResult;
+import com.lessvoid.indexgl.registry.FederatedRegistry.Suggestion;
+import com.lessvoid.indexgl.registry.Registry.GLResult;
+
+public class FederatedRegistryTest {
+  private static FederatedRegistry federated;
+
+  @BeforeClass
+  public static void before() throws Exception {
+    Map<String, Registry> registries = new LinkedHashMap<String, Registry>();
+    registries.put("gl", new Registry());
+    registries.put("egl", Registry.openIfChanged(null, eglFile(), null));
+    federated = new FederatedRegistry(registries, 10000);
+  }
+
+  @AfterClass
+  public static void after() throws Exception {
+    federated.close();
+  }
+
+  @Test
+  public void testSuggest() throws Exception {
+    FederatedTypeaheadResult result = federated.suggest("GetErr", 10);
+    assertEquals(2, result.getTotal());
+    assertEquals(0, result.getTimedOut().size());
+    assertSuggestion("glGetError", "gl", result.getResult()[0]);
+    assertSuggestion("eglGetError", "egl", result.getResult()[1]);
+  }
+
+  @Test
+  public void testSuggestMergedByWeight() throws Exception {
+    Suggestion[] result = federated.suggest("get", 100).getResult();
+    assertEquals(100, result.length);
+    for (int i = 1; i < result.length; i++) {
+      assertTrue(result[i].getName(), result[i - 1].getName().length() <= result[i].getName().length());
+    }
+  }
+
+  @Test
+  public void testGLInfo() throws Exception {
+    FederatedGLResult egl = federated.getGLInfo("eglGetDisplay");
+    assertEquals(1, egl.getResults().size());
+    assertEquals("egl", egl.getResults().get(0).getRegistry());
+    GLResult eglResult = egl.getResults().get(0).getResult();
+    assertEquals("eglGetDisplay", eglResult.getName());
+    assertEquals(Arrays.asList("1.0"), eglResult.getVersions());
+    assertEquals(1, eglResult.getList().size());
+    assertEquals("EGL", eglResult.getList().get(0).getApi());
+    assertEquals(Arrays.asList("Y"), eglResult.getList().get(0).getSupported());
+
+    FederatedGLResult gl = federated.getGLInfo("glClear");
+    assertEquals(1, gl.getResults().size());
+    assertEquals("gl", gl.getResults().get(0).getRegistry());
+    assertEquals(0, federated.getGLInfo("glUnknown").getResults().size());
+  }
+
+  @Test
+  public void testOpen() throws Exception {
+    FederatedRegistry opened = FederatedRegistry.open(Arrays.asList(eglFile()), null, 100);
+    try {
+      assertEquals(Arrays.asList("egl"), opened.getNames());
+      assertSuggestion("eglGetDisplay", "egl", opened.suggest("display", 10).getResult()[0]);
+    } finally {
+      opened.close();
+    }
+  }
+
+  private static File eglFile() throws Exception {
+    return new File(FederatedRegistryTest.class.getResource("/egl.xml").toURI());
+  }
+
+  private static void assertSuggestion(final String name, final String registry, final Suggestion suggestion) {
+    assertEquals(name, suggestion.getName());
+    assertEquals(registry, suggestion.getRegistry());
+  }
+}
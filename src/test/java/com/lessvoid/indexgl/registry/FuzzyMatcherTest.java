@@ -0,0 +1,74 @@
+package com.lessvoid.indexgl.registry;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class FuzzyMatcherTest {
+  private static final List<String> IDENTIFIERS = Arrays.asList(
+      "glBindFramebuffer", "glBindFramebufferEXT", "glBindRenderbuffer", "glClear", "glClearColor",
+      "GL_TEXTURE_1D_ARRAY", "GL_TEXTURE_2D", "GL_TEXTURE_2D_ARRAY", "GL_TEXTURE_3D");
+
+  private final FuzzyMatcher matcher = new FuzzyMatcher(IDENTIFIERS, Long.MAX_VALUE);
+
+  @Test
+  public void testMaxEdits() {
+    assertEquals(0, FuzzyMatcher.maxEdits(3));
+    assertEquals(1, FuzzyMatcher.maxEdits(4));
+    assertEquals(1, FuzzyMatcher.maxEdits(7));
+    assertEquals(2, FuzzyMatcher.maxEdits(8));
+  }
+
+  @Test
+  public void testMissingCharacter() {
+    assertMatch("glBindFramebufer", "glBindFramebuffer", "glBindFramebufferEXT");
+  }
+
+  @Test
+  public void testTransposition() {
+    assertMatch("glClaer", "glClear", "glClearColor");
+  }
+
+  @Test
+  public void testTwoEdits() {
+    assertMatch("GL_TEXTURE_2D_ARARY", "GL_TEXTURE_2D_ARRAY");
+    assertMatch("gl_textrue_2d_arary", "GL_TEXTURE_2D_ARRAY");
+  }
+
+  @Test
+  public void testShortQuery() {
+    assertMatch("glC");
+  }
+
+  @Test
+  public void testPhrase() {
+    assertMatch("bind framebufer");
+  }
+
+  @Test
+  public void testCount() {
+    assertEquals(Arrays.asList("glBindFramebuffer"), matcher.match("glBindFramebufer", 1, Collections.<String>emptySet()));
+  }
+
+  @Test
+  public void testExclude() {
+    Set<String> exclude = new HashSet<String>(Arrays.asList("glbindframebuffer"));
+    assertEquals(Arrays.asList("glBindFramebufferEXT"), matcher.match("glBindFramebufer", 10, exclude));
+  }
+
+  @Test
+  public void testBudgetUsedUp() {
+    FuzzyMatcher noTime = new FuzzyMatcher(IDENTIFIERS, 0);
+    assertEquals(0, noTime.match("glBindFramebufer", 10, Collections.<String>emptySet()).size());
+  }
+
+  private void assertMatch(final String q, final String ... expected) {
+    assertEquals(Arrays.asList(expected), matcher.match(q, 10, Collections.<String>emptySet()));
+  }
+}
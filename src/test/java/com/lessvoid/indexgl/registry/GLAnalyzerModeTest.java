@@ -0,0 +1,88 @@
+package com.lessvoid.indexgl.registry;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.lessvoid.indexgl.registry.GLAnalyzer.Mode;
+
+/**
+ * Compares the analyzer modes: number of terms, index size and typeahead latency. The numbers are printed so they
+ * can be compared between changes.
+ */
+public class GLAnalyzerModeTest {
+  private static final String[] QUERIES = {
+    "g", "gl", "glC", "glCo", "glColor", "glColor3f", "begin", "begin query", "tex", "texture", "GL_TEXTURE",
+    "GL_2D", "buffer", "draw", "uniform", "vertex attrib", "frame", "program", "shader", "query"
+  };
+  private static final int ROUNDS = 200;
+
+  private static Registry nGram;
+  private static Registry wordPartEdgeNGram;
+
+  @BeforeClass
+  public static void before() throws Exception {
+    nGram = new Registry(null, Mode.NGram, null);
+    wordPartEdgeNGram = new Registry(null, Mode.WordPartEdgeNGram, null);
+  }
+
+  @Test
+  public void testReport() throws Exception {
+    report(Mode.NGram, nGram);
+    report(Mode.WordPartEdgeNGram, wordPartEdgeNGram);
+
+    assertTrue(wordPartEdgeNGram.termCount() < nGram.termCount());
+    assertTrue(wordPartEdgeNGram.indexSizeInBytes() < nGram.indexSizeInBytes());
+  }
+
+  /**
+   * The RegistryTest typeahead expectations that fit on a single page must find the same identifiers in every mode.
+   * The order might be different since the modes score differently.
+   */
+  @Test
+  public void testTypeaheadExpectations() throws Exception {
+    for (Registry registry : Arrays.asList(nGram, wordPartEdgeNGram)) {
+      assertSameResult(registry, "begin",
+          "glBegin", "glBeginQuery", "glBeginTransformFeedback", "glBeginConditionalRender", "glBeginQueryIndexed");
+      assertSameResult(registry, "glColor3f", "glColor3f", "glColor3fv");
+      assertSameResult(registry, "GL_2D", "GL_2D");
+      assertSameResult(registry, "begin query", "glBeginQuery", "glBeginQueryIndexed");
+    }
+  }
+
+  private void assertSameResult(final Registry registry, final String q, final String ... expected) throws Exception {
+    String[] actual = registry.typeahead(q).getResult();
+    String[] sortedActual = actual.clone();
+    String[] sortedExpected = expected.clone();
+    Arrays.sort(sortedActual);
+    Arrays.sort(sortedExpected);
+    assertArrayEquals(sortedExpected, sortedActual);
+  }
+
+  private void report(final Mode mode, final Registry registry) throws Exception {
+    // warm up
+    for (int i = 0; i < ROUNDS; i++) {
+      for (String q : QUERIES) {
+        registry.typeahead(q);
+      }
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < ROUNDS; i++) {
+      for (String q : QUERIES) {
+        registry.typeahead(q);
+      }
+    }
+    long time = System.nanoTime() - start;
+    System.out.println(String.format(Locale.ENGLISH,
+        "%-20s terms: %8d, index bytes: %9d, typeahead: %8.3fus/query",
+        mode,
+        registry.termCount(),
+        registry.indexSizeInBytes(),
+        time / 1000f / (ROUNDS * QUERIES.length)));
+  }
+}
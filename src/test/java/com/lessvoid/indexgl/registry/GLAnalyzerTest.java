@@ -39,10 +39,31 @@ public class GLAnalyzerTest {
     }
   }
 
+  @Test
+  public void testWordPartEdgeNGramGLColor3fv() throws Exception {
+    execTest(GLAnalyzer.Mode.WordPartEdgeNGram, "glColor3fv",
+        "g", "gl", "glc", "glco", "glcol", "glcolo", "glcolor", "glcolor3", "glcolor3f", "glcolor3fv",
+        "c", "co", "col", "colo", "color", "color3", "color3f", "color3fv",
+        "3", "3f", "3fv",
+        "f", "fv");
+  }
+
+  @Test
+  public void testWordPartEdgeNGramGL_2D() throws Exception {
+    execTest(GLAnalyzer.Mode.WordPartEdgeNGram, "GL_2D",
+        "g", "gl", "gl_", "gl_2", "gl_2d",
+        "2", "2d",
+        "d");
+  }
+
   private void execTest(final String input, final String ... expected) throws Exception {
     assertList(AnalyzerUtils.tokensFromAnalysis(new GLAnalyzer(Version.LUCENE_44), input), expected);
   }
 
+  private void execTest(final GLAnalyzer.Mode mode, final String input, final String ... expected) throws Exception {
+    assertList(AnalyzerUtils.tokensFromAnalysis(new GLAnalyzer(Version.LUCENE_44, mode), input), expected);
+  }
+
   private void assertList(final List<String> actual, final String ... expected) {
     for (int i=0; i<actual.size(); i++) {
       System.out.println(i + ": " + actual.get(i));
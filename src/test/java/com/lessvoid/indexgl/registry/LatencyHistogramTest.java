@@ -0,0 +1,44 @@
+package com.lessvoid.indexgl.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testEmpty() {
+    LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+    assertEquals(0, snapshot.getCount());
+    assertEquals(0, snapshot.getValueAtPercentile(99));
+  }
+
+  @Test
+  public void testBuckets() {
+    for (long value = 0; value < 1L << 41; value = value * 3 / 2 + 1) {
+      int bucket = LatencyHistogram.bucket(value);
+      assertTrue(value + " <= " + LatencyHistogram.highestValue(bucket), value <= LatencyHistogram.highestValue(bucket));
+      assertTrue(value + " in previous bucket", bucket == 0 || value > LatencyHistogram.highestValue(bucket - 1));
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long micros = 1; micros <= 1000; micros++) {
+      histogram.record(micros * 1000);
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(1000, snapshot.getCount());
+    assertEquals(500500000, snapshot.getSum());
+    assertEquals(1000000, snapshot.getMax());
+    assertWithin(500000, snapshot.getValueAtPercentile(50));
+    assertWithin(990000, snapshot.getValueAtPercentile(99));
+    assertEquals(1000000, snapshot.getValueAtPercentile(100));
+  }
+
+  private void assertWithin(final long expected, final long actual) {
+    assertTrue(expected + " ~ " + actual, actual >= expected && actual <= expected + expected / 32);
+  }
+}
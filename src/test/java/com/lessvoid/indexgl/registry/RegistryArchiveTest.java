@@ -0,0 +1,43 @@
+package com.lessvoid.indexgl.registry;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+/**
+ * Makes sure the compiled registry (created by the build in the process-classes phase) answers exactly like a
+ * registry parsed from the gl.xml.
+ */
+public class RegistryArchiveTest {
+  private static Registry compiled;
+  private static Registry parsed;
+
+  @BeforeClass
+  public static void before() throws Exception {
+    RegistryArchive archive = RegistryArchive.open(Registry.class.getResourceAsStream("/gl.registry"));
+    assertNotNull("gl.registry is missing (it is created by the build in the process-classes phase)", archive);
+    compiled = new Registry(archive, Registry.DEFAULT_ANALYZER_MODE, null);
+    parsed = new Registry(null, Registry.DEFAULT_ANALYZER_MODE, null);
+  }
+
+  @Test
+  public void testGLInfo() throws Exception {
+    Gson gson = new Gson();
+    for (String gl : new String[] {
+        "glNewList", "GL_VERTEX_ARRAY", "glTranslatef", "e", "GL_2D", "glDrawArraysInstancedBaseInstance" }) {
+      assertEquals(gl, gson.toJson(parsed.getGLInfo(gl)), gson.toJson(compiled.getGLInfo(gl)));
+    }
+  }
+
+  @Test
+  public void testTypeahead() throws Exception {
+    for (String q : new String[] { "begin", "glColor", "glColor3f", "GL_2D" }) {
+      assertArrayEquals(q, parsed.typeahead(q).getResult(), compiled.typeahead(q).getResult());
+    }
+  }
+}
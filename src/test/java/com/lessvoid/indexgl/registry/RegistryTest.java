@@ -2,19 +2,39 @@ package com.lessvoid.indexgl.registry;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import com.google.gson.Gson;
+import com.lessvoid.indexgl.registry.Registry.EnumValueResult;
+import com.lessvoid.indexgl.registry.Registry.EnumValueResult.Definition;
+import com.lessvoid.indexgl.registry.Registry.ExtensionResult;
 import com.lessvoid.indexgl.registry.Registry.GLResult;
 import com.lessvoid.indexgl.registry.Registry.GLResult.ApiWithSupportedVersions;
+import com.lessvoid.indexgl.registry.Registry.GLResult.Availability;
+import com.lessvoid.indexgl.registry.Registry.GLResult.Combined;
+import com.lessvoid.indexgl.registry.Registry.GLResult.ExtensionAvailability;
+import com.lessvoid.indexgl.registry.Registry.GroupResult;
+import com.lessvoid.indexgl.registry.Registry.GroupsResult;
+import com.lessvoid.indexgl.registry.Registry.SignatureResult;
+import com.lessvoid.indexgl.registry.Registry.SignatureResult.Parameter;
 
 public class RegistryTest {
   private static Registry registry;
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   @BeforeClass
   public static void before() throws Exception {
     registry = new Registry();
@@ -48,6 +68,45 @@ public class RegistryTest {
         "GL_2D");
   }
 
+  @Test
+  public void testSuggestBegin() throws Exception {
+    execSuggestTest(
+        "begin",
+        "glBegin", "glBeginQuery", "glBeginQueryIndexed", "glBeginTransformFeedback", "glBeginConditionalRender");
+  }
+
+  @Test
+  public void testSuggestPhrase() throws Exception {
+    execSuggestTest(
+        "begin query",
+        "glBeginQuery", "glBeginQueryIndexed");
+  }
+
+  @Test
+  public void testSuggestGLColor3f() throws Exception {
+    execSuggestTest(
+        "glColor3f",
+        "glColor3f", "glColor3fv");
+  }
+
+  @Test
+  public void testSuggestGL_2D() throws Exception {
+    execSuggestTest(
+        "GL_2D",
+        "GL_2D");
+  }
+
+  @Test
+  public void testSuggestCount() throws Exception {
+    assertEquals(3, registry.suggest("begin", 3).getResult().length);
+  }
+
+  @Test
+  public void testSuggestFuzzyKeepsExactResults() throws Exception {
+    assertResult(registry.suggest("begin", 10, true).getResult(), registry.suggest("begin").getResult());
+    assertResult(registry.typeahead("glColor", true).getResult(), registry.typeahead("glColor").getResult());
+  }
+
   @Test
   public void testGLNewList() throws Exception {
     GLResult result = registry.getGLInfo("glNewList");
@@ -90,6 +149,14 @@ public class RegistryTest {
     assertNull(result);
   }
 
+  @Test
+  public void testCaseInsensitiveHit() throws Exception {
+    GLResult result = registry.getGLInfo("GLNEWLIST");
+
+    assertEquals("glNewList", result.getName());
+    assertEquals(3, result.getList().size());
+  }
+
   @Test
   public void testDirectHit() throws Exception {
     GLResult result = registry.getGLInfo("GL_2D");
@@ -114,6 +181,176 @@ public class RegistryTest {
     assertSupported(result.getList().get(2), "OpenGL ES",           " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ");
   }
 
+  @Test
+  public void testExtensionsOfIdentifier() throws Exception {
+    assertEquals(Arrays.asList("GL_KHR_debug"), registry.getGLInfo("glDebugMessageCallback").getExtensions());
+    assertEquals(Arrays.asList(), registry.getGLInfo("glBegin").getExtensions());
+  }
+
+  @Test
+  public void testExtensionOnlyIdentifier() throws Exception {
+    GLResult result = registry.getGLInfo("glDebugMessageCallbackARB");
+
+    assertEquals("glDebugMessageCallbackARB", result.getName());
+    assertEquals(Arrays.asList("GL_ARB_debug_output"), result.getExtensions());
+    assertSupported(result.getList().get(0), "OpenGL",              " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ", " ");
+  }
+
+  @Test
+  public void testExtension() throws Exception {
+    ExtensionResult result = registry.getExtension("gl_khr_debug");
+
+    assertEquals("GL_KHR_debug", result.getName());
+    assertEquals(Arrays.asList("gl", "glcore", "gles2"), result.getSupported());
+    assertEquals(true, result.getCommands().contains("glDebugMessageCallback"));
+    assertEquals(true, result.getCommands().contains("glDebugMessageCallbackKHR"));
+    assertEquals(true, result.getEnums().contains("GL_DEBUG_OUTPUT"));
+    assertEquals(false, result.getEnums().contains("glDebugMessageCallback"));
+    assertNull(registry.getExtension("GL_NO_SUCH_extension"));
+  }
+
+  @Test
+  public void testSnapshot() throws Exception {
+    File snapshotDirectory = folder.getRoot();
+    Registry written = new Registry(snapshotDirectory);
+    Registry opened = new Registry(snapshotDirectory);
+
+    Gson gson = new Gson();
+    for (String gl : new String[] {
+        "glNewList", "GL_VERTEX_ARRAY", "glDrawArraysInstancedBaseInstance", "glDebugMessageCallbackARB" }) {
+      assertEquals(gson.toJson(written.getGLInfo(gl)), gson.toJson(opened.getGLInfo(gl)));
+    }
+    assertArrayEquals(written.typeahead("begin").getResult(), opened.typeahead("begin").getResult());
+  }
+
+  @Test
+  public void testSignature() throws Exception {
+    SignatureResult result = registry.getSignature("glgetstring");
+
+    assertEquals("glGetString", result.getName());
+    assertEquals("const GLubyte *", result.getReturnType());
+    assertEquals("String", result.getReturnGroup());
+    assertEquals(1, result.getParameters().size());
+    assertEquals("StringName", result.getParameters().get(0).getGroup());
+    assertEquals("const GLubyte *glGetString(GLenum name)", result.getDeclaration());
+  }
+
+  @Test
+  public void testSignatureParameters() throws Exception {
+    SignatureResult result = registry.getSignature("glShaderSource");
+
+    assertEquals("void", result.getReturnType());
+    assertNull(result.getReturnGroup());
+    assertEquals(4, result.getParameters().size());
+    Parameter string = result.getParameters().get(2);
+    assertEquals("string", string.getName());
+    assertEquals("const GLchar *const*", string.getType());
+    assertEquals("GLchar", string.getPtype());
+    assertEquals("count", string.getLen());
+    assertNull(string.getGroup());
+    assertEquals("void glFinish(void)", registry.getSignature("glFinish").getDeclaration());
+  }
+
+  @Test
+  public void testSignatureUnknown() throws Exception {
+    assertNull(registry.getSignature("GL_TEXTURE_2D"));
+    assertNull(registry.getSignature("glUnknown"));
+  }
+
+  @Test
+  public void testEnumValue() throws Exception {
+    EnumValueResult result = registry.getEnumValue("0x8cd6");
+
+    assertEquals("0x8CD6", result.getValue());
+    assertEquals(3, result.getEnums().size());
+    assertEquals("GL_FRAMEBUFFER_INCOMPLETE_ATTACHMENT", result.getEnums().get(0).getName());
+    assertEquals("0x0500", registry.getEnumValue("1280").getValue());
+    assertNull(registry.getEnumValue("0x1234567"));
+  }
+
+  @Test
+  public void testEnumValueGroupAndType() throws Exception {
+    Definition timeoutIgnored = registry.getEnumValue("0xFFFFFFFFFFFFFFFF").getEnums().get(0);
+    assertEquals("GL_TIMEOUT_IGNORED", timeoutIgnored.getName());
+    assertEquals("SpecialNumbers", timeoutIgnored.getGroup());
+    assertEquals("ull", timeoutIgnored.getType());
+
+    Definition allAttribBits = registry.getEnumValue("0xFFFFFFFF").getEnums().get(0);
+    assertEquals("GL_ALL_ATTRIB_BITS", allAttribBits.getName());
+    assertEquals("AttribMask", allAttribBits.getGroup());
+    assertEquals("bitmask", allAttribBits.getType());
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testEnumValueNotANumber() throws Exception {
+    registry.getEnumValue("0xGL");
+  }
+
+  @Test
+  public void testSuggestEnumValue() throws Exception {
+    execSuggestTest("0x0500", "GL_INVALID_ENUM");
+    execTypeaheadTest("0x0500", "GL_INVALID_ENUM");
+  }
+
+  @Test
+  public void testAliases() throws Exception {
+    GLResult arb = registry.getGLInfo("glActiveTextureARB");
+    assertEquals(Arrays.asList("glActiveTexture"), arb.getAliases());
+    assertNull(arb.getVecequiv());
+
+    GLResult core = registry.getGLInfo("glActiveTexture");
+    assertTrue(core.getAliases().contains("glActiveTextureARB"));
+    assertFalse(core.getAliases().contains("glActiveTexture"));
+  }
+
+  @Test
+  public void testAliasesCombined() throws Exception {
+    Combined combined = registry.getGLInfo("glActiveTextureARB").getCombined();
+
+    Availability gl = combined.getVersions().get(0);
+    assertEquals("OpenGL", gl.getApi());
+    assertEquals("1.3", gl.getSince());
+    assertEquals("glActiveTexture", gl.getVia());
+    boolean arbMultitexture = false;
+    for (ExtensionAvailability extension : combined.getExtensions()) {
+      if ("GL_ARB_multitexture".equals(extension.getName())) {
+        assertEquals("glActiveTextureARB", extension.getVia());
+        arbMultitexture = true;
+      }
+    }
+    assertTrue(arbMultitexture);
+  }
+
+  @Test
+  public void testVecequiv() throws Exception {
+    assertEquals(Arrays.asList("glColor3fv"), registry.getGLInfo("glColor3f").getVecequiv());
+    assertTrue(registry.getGLInfo("glColor3fv").getVecequiv().contains("glColor3f"));
+    assertNull(registry.getGLInfo("glColor3f").getAliases());
+    assertNull(registry.getGLInfo("glColor3f").getCombined());
+    assertNull(registry.getGLInfo("GL_TEXTURE_2D").getVecequiv());
+  }
+
+  @Test
+  public void testGroup() throws Exception {
+    GroupResult result = registry.getGroup("stringname");
+
+    assertEquals("StringName", result.getName());
+    assertEquals(Arrays.asList("GL_VENDOR", "GL_RENDERER", "GL_VERSION", "GL_EXTENSIONS"), result.getEnums());
+    assertTrue(registry.getGroup("PrimitiveType").getEnums().contains("GL_TRIANGLES"));
+    assertNull(registry.getGroup("NoSuchGroup"));
+  }
+
+  @Test
+  public void testGroups() throws Exception {
+    GroupsResult result = registry.getGroups("gl_vendor");
+
+    assertEquals("GL_VENDOR", result.getName());
+    assertEquals(Arrays.asList("StringName"), result.getGroups());
+    assertTrue(registry.getGroups("GL_TRIANGLES").getGroups().contains("PrimitiveType"));
+    assertEquals(0, registry.getGroups("glBegin").getGroups().size());
+    assertNull(registry.getGroups("GL_NO_SUCH_ENUM"));
+  }
+
   private void assertResult(final String[] result, final String ... expected) {
     assertArrayEquals(expected, result);
   }
@@ -122,6 +359,10 @@ public class RegistryTest {
     assertResult(registry.typeahead(search).getResult(), expected);
   }
 
+  private void execSuggestTest(final String search, final String ... expected) throws Exception {
+    assertResult(registry.suggest(search).getResult(), expected);
+  }
+
   private void assertVersions(final List<String> actual, final String ... expected) {
     assertArrayEquals(actual.toArray(), expected);
   }
@@ -0,0 +1,83 @@
+package com.lessvoid.indexgl.registry;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.lessvoid.indexgl.registry.Registry.GLResult;
+import com.lessvoid.indexgl.registry.Registry.GLResult.ApiWithSupportedVersions;
+import com.lessvoid.indexgl.registry.Registry.TypeaheadResult;
+
+public class ResultJsonTest {
+  private static Registry registry;
+  private final Gson gson = new Gson();
+
+  @BeforeClass
+  public static void before() throws Exception {
+    registry = new Registry();
+  }
+
+  @Test
+  public void testAllIdentifiersLikeGson() throws Exception {
+    for (int ordinal = 0; ordinal < registry.getOrdinalCount(); ordinal++) {
+      GLResult result = registry.getGLInfo(ordinal);
+      assertEquals(gson.toJson(result), new String(ResultJson.toBytes(result), "UTF-8"));
+    }
+  }
+
+  @Test
+  public void testRelatedLikeGson() throws Exception {
+    for (String gl : new String[] { "glActiveTextureARB", "glActiveTexture", "glColor3f", "GL_GEOMETRY_SHADER_EXT" }) {
+      GLResult result = registry.getGLInfo(gl);
+      assertEquals(gl, gson.toJson(result), write(result));
+    }
+  }
+
+  @Test
+  public void testTypeaheadLikeGson() throws Exception {
+    for (String q : new String[] { "begin", "glColor", "GL_TEXTURE", "draw arrays", "0x0500", "nothing at all" }) {
+      TypeaheadResult result = registry.suggest(q, 100);
+      assertEquals(q, gson.toJson(result), write(result));
+    }
+  }
+
+  @Test
+  public void testEscapes() throws Exception {
+    TypeaheadResult result = new TypeaheadResult(new String[] {
+        "<a href='x'>&=", "\"quoted\" \\ back", "\t\b\n\r\f\u0001\u001f", "\u2028\u2029",
+        "\u00e9\u20ac\ud83d\ude00", null }, 0, 6, 6);
+    assertEquals(gson.toJson(result), write(result));
+  }
+
+  @Test
+  public void testLargerThanBuffer() throws Exception {
+    List<String> versions = new ArrayList<String>();
+    for (int i = 0; i < 5000; i++) {
+      versions.add("version \u00e9 " + i);
+    }
+    GLResult result = new GLResult("large", versions, new ApiWithSupportedVersions("OpenGL", versions));
+    result.setRelated(Arrays.asList("alias"), null, null);
+    String expected = gson.toJson(result);
+    assertEquals(expected, new String(ResultJson.toBytes(result), "UTF-8"));
+    assertEquals(expected, write(result));
+  }
+
+  private String write(final TypeaheadResult result) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ResultJson.write(result, out);
+    return out.toString("UTF-8");
+  }
+
+  private String write(final GLResult result) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ResultJson.write(result, out);
+    return out.toString("UTF-8");
+  }
+}
@@ -0,0 +1,117 @@
+package com.lessvoid.indexgl.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SetExpressionTest {
+  private static Registry registry;
+
+  @BeforeClass
+  public static void before() throws Exception {
+    registry = new Registry();
+  }
+
+  @Test
+  public void testSets() throws Exception {
+    List<String> sets = registry.getQuerySets();
+    assertTrue(sets.contains("gl:1.0"));
+    assertTrue(sets.contains("gl:4.4:core"));
+    assertFalse(sets.contains("gl:2.0:core"));
+    assertTrue(sets.contains("gles1:1.0"));
+    assertTrue(sets.contains("gles2:3.0"));
+    assertEquals(registry.query("all").size(), registry.query("commands | enums").size());
+    assertEquals(0, registry.query("commands & enums").size());
+  }
+
+  @Test
+  public void testOperators() throws Exception {
+    List<String> coreNotES = names("gl:3.3:core - gles2:2.0");
+    assertTrue(coreNotES.contains("glBindVertexArray"));
+    assertFalse(coreNotES.contains("glGenBuffers"));
+    assertFalse(coreNotES.contains("glBegin"));
+
+    assertTrue(names("gl:3.3:core & gles2:2.0").contains("glGenBuffers"));
+    assertTrue(names("gl:3.3 minus gl:3.3:core").contains("glBegin"));
+    assertEquals(names("gl:3.3:core - gles2:2.0"), names("gl:3.3:core and (all - gles2:2.0)"));
+
+    assertEquals(
+        registry.query("gl:4.4").size(),
+        registry.query("gl:4.4 - gl:4.1").size() + registry.query("gl:4.4 & gl:4.1").size());
+    assertEquals(names("gl:4.4 - gl:4.1"), names("(gl:4.4 | gl:4.1) - gl:4.1"));
+  }
+
+  @Test
+  public void testPrecedence() throws Exception {
+    assertEquals(names("gl:4.4 - (gl:4.1 & enums)"), names("gl:4.4 - gl:4.1 & enums"));
+    assertEquals(names("(gl:4.4 - gl:4.1) & enums"), names("(gl:4.4 - gl:4.1) and ENUMS"));
+  }
+
+  @Test
+  public void testDiff() throws Exception {
+    Registry.DiffResult diff = registry.diff("gl", "core", "3.0", "3.2");
+    assertEquals("core", diff.getProfile());
+    assertTrue(diff.getRemovedCommands().contains("glBegin"));
+    assertTrue(diff.getRemovedEnums().contains("GL_QUADS"));
+    assertTrue(diff.getAddedCommands().contains("glDrawElementsBaseVertex"));
+    assertTrue(diff.getAddedEnums().contains("GL_GEOMETRY_SHADER"));
+    assertFalse(diff.getAddedCommands().contains("glGenBuffers"));
+
+    Registry.DiffResult compatibility = registry.diff("gl", null, "3.0", "3.2");
+    assertEquals(0, compatibility.getRemovedCommands().size());
+    assertEquals(diff.getAddedCommands(), compatibility.getAddedCommands());
+
+    assertTrue(registry.diff("gles2", null, "2.0", "3.0").getAddedCommands().contains("glBindVertexArray"));
+    assertTrue(registry.diff("gl", null, "3.2", "3.0").getRemovedCommands().contains("glDrawElementsBaseVertex"));
+  }
+
+  @Test
+  public void testDiffUnknownVersion() throws Exception {
+    try {
+      registry.diff("gles2", null, "2.0", "4.4");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testPaging() throws Exception {
+    IdentifierSet all = registry.query("all");
+    List<String> first = new ArrayList<String>();
+    all.names(0, 10, first);
+    List<String> second = new ArrayList<String>();
+    all.names(5, 10, second);
+    assertEquals(10, first.size());
+    assertEquals(first.subList(5, 10), second.subList(0, 5));
+
+    List<String> last = new ArrayList<String>();
+    all.names(all.size() - 3, 10, last);
+    assertEquals(3, last.size());
+  }
+
+  @Test
+  public void testInvalid() throws Exception {
+    for (String expression : new String[] { "", "gl:9.9", "(gl:1.0", "gl:1.0 |", "gl:1.0 gl:1.1", "gl:1.0 * gl:1.1" }) {
+      try {
+        registry.query(expression);
+        fail(expression);
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  private List<String> names(final String expression) throws Exception {
+    List<String> result = new ArrayList<String>();
+    registry.query(expression).names(0, Integer.MAX_VALUE, result);
+    return result;
+  }
+}
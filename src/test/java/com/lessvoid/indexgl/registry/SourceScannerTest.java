@@ -0,0 +1,90 @@
+package com.lessvoid.indexgl.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.lessvoid.indexgl.registry.SourceScanner.ProfileRequirement;
+import com.lessvoid.indexgl.registry.SourceScanner.ScanResult;
+
+public class SourceScannerTest {
+  private static final String SOURCE =
+      "#include <GL/gl.h>\n" +
+      "// glBegin(GL_QUADS) is not used anymore\n" +
+      "/* neither is glEnd(); */\n" +
+      "void render(GLuint vbo) {\n" +
+      "  const char* s = \"glNewList\";\n" +
+      "  glBindBuffer(GL_ARRAY_BUFFER, vbo);\n" +
+      "  glDrawArrays(GL_TRIANGLES, 0, 3);\n" +
+      "  float f = 1.0f; int gl_Position = 0x1F; glbindbuffer();\n" +
+      "}\n";
+
+  private static Registry registry;
+
+  @BeforeClass
+  public static void before() throws Exception {
+    registry = new Registry();
+  }
+
+  @Test
+  public void testScan() throws Exception {
+    ScanResult result = scan(new StringReader(SOURCE));
+    assertEquals(
+        Arrays.asList("GL_TRIANGLES", "glDrawArrays", "GL_ARRAY_BUFFER", "glBindBuffer"),
+        result.getIdentifiers());
+
+    ProfileRequirement gl = result.getProfiles().get(0);
+    assertEquals("OpenGL", gl.getApi());
+    assertEquals("1.5", gl.getMinimum());
+    assertEquals(Arrays.asList("GL_ARRAY_BUFFER", "glBindBuffer"), gl.getBlockers().get("1.4"));
+    assertEquals(
+        Arrays.asList("GL_TRIANGLES", "glDrawArrays", "GL_ARRAY_BUFFER", "glBindBuffer"), gl.getBlockers().get("1.0"));
+
+    assertEquals("3.2", result.getProfiles().get(1).getMinimum());
+    assertEquals("1.0", result.getProfiles().get(2).getMinimum());
+  }
+
+  @Test
+  public void testEmpty() throws Exception {
+    ScanResult result = scan(new StringReader("int main() { return 0; }"));
+    assertEquals(0, result.getIdentifiers().size());
+    assertNull(result.getProfiles().get(0).getMinimum());
+  }
+
+  @Test
+  public void testLargeSource() throws Exception {
+    final int repeat = 20000;
+    Reader source = new Reader() {
+      private int position;
+
+      @Override
+      public int read(final char[] cbuf, final int off, final int len) {
+        if (position >= SOURCE.length() * repeat) {
+          return -1;
+        }
+        int count = 0;
+        while (count < len && position < SOURCE.length() * repeat) {
+          cbuf[off + count++] = SOURCE.charAt(position++ % SOURCE.length());
+        }
+        return count;
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    ScanResult result = scan(source);
+    assertEquals(4, result.getIdentifiers().size());
+    assertEquals("1.5", result.getProfiles().get(0).getMinimum());
+  }
+
+  private ScanResult scan(final Reader source) throws Exception {
+    return registry.newSourceScanner().scan(source);
+  }
+}
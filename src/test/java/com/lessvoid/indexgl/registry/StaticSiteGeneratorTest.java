@@ -0,0 +1,57 @@
+package com.lessvoid.indexgl.registry;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.Gson;
+
+public class StaticSiteGeneratorTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testGenerate() throws Exception {
+    Registry registry = new Registry();
+    File output = folder.getRoot();
+    int count = new StaticSiteGenerator(registry, output).generate(4);
+
+    assertEquals(registry.allIdentifierNames().size(), count);
+    assertEquals(count * 2, new File(output, "gl").list().length);
+    assertEquals(count * 2, new File(output, "gl-table").list().length);
+
+    Gson gson = new Gson();
+    for (String gl : new String[] { "glNewList", "GL_VERTEX_ARRAY", "glActiveTextureARB" }) {
+      byte[] json = gson.toJson(registry.getGLInfo(gl)).getBytes("UTF-8");
+      assertArrayEquals(gl, json, read(new FileInputStream(new File(output, "gl/" + gl + ".json"))));
+      assertArrayEquals(gl, json, read(new GZIPInputStream(new FileInputStream(new File(output, "gl/" + gl + ".json.gz")))));
+      byte[] table = registry.getGLInfo(gl).generateTable().getBytes("UTF-8");
+      assertArrayEquals(gl, table, read(new FileInputStream(new File(output, "gl-table/" + gl + ".html"))));
+    }
+    assertTrue(new File(output, "gl-table/glNewList.html.gz").isFile());
+  }
+
+  private byte[] read(final InputStream in) throws Exception {
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    } finally {
+      in.close();
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.lessvoid.indexgl.registry;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TypeaheadCacheTest {
+  private static final List<String> IDENTIFIERS = Arrays.asList(
+      "glBegin", "glBeginQuery", "glBeginQueryIndexed", "glColor3f", "glColor3fv", "glColorMask", "GL_COLOR",
+      "GL_COLOR_BUFFER_BIT", "GL_2D", "GL_TEXTURE_2D", "glEnd", "glEndQuery");
+
+  private Suggester suggester;
+  private TypeaheadCache cache;
+
+  @Before
+  public void before() throws Exception {
+    int[] weights = new int[IDENTIFIERS.size()];
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = -IDENTIFIERS.get(i).length();
+    }
+    suggester = new Suggester(IDENTIFIERS, weights);
+    cache = new TypeaheadCache(suggester, 100);
+  }
+
+  @Test
+  public void testKeystrokes() throws Exception {
+    String typed = "glColor3fv";
+    for (int i = 1; i <= typed.length(); i++) {
+      String q = typed.substring(0, i);
+      assertArrayEquals(q, suggester.candidates(q), cache.candidates(q));
+    }
+    assertEquals(0, cache.getHits());
+    assertEquals(typed.length() - 1, cache.getNarrowed());
+    assertEquals(1, cache.getMisses());
+
+    assertArrayEquals(suggester.candidates("glcolor"), cache.candidates(" GLColor "));
+    assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  public void testWords() throws Exception {
+    for (String q : new String[] { "gl", "gl c", "gl co", "gl color b", "begin", "begin query", "texture 2" }) {
+      assertArrayEquals(q, suggester.candidates(q), cache.candidates(q));
+    }
+    assertEquals(3, cache.getMisses());
+    assertEquals(4, cache.getNarrowed());
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    cache = new TypeaheadCache(suggester, 16);
+    for (String identifier : IDENTIFIERS) {
+      for (int i = 1; i <= identifier.length(); i++) {
+        cache.candidates(identifier.substring(0, i));
+      }
+    }
+    assertEquals(true, cache.size() <= 16);
+  }
+}